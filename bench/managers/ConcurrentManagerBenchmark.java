@@ -0,0 +1,100 @@
+package managers;
+
+import app.Managers;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Смешанная нагрузка на доску из size задач: 80% get*ById и 20% обновлений задач и подзадач
+// (с пересчётом эпика). ConcurrentTaskManager сравнивается с InMemoryTaskManager за одной общей
+// блокировкой - так доску использовали из нескольких потоков раньше. Число потоков задаётся -t,
+// масштабирование видно только при нескольких ядрах
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ConcurrentManagerBenchmark {
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"concurrent", "locked"})
+    private String manager;
+
+    private TaskManager board;
+    private Object lock;  // общая блокировка для locked, null для concurrent
+    private int epicCount;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+    }
+
+    @Setup
+    public void setUp() {
+        boolean concurrent = manager.equals("concurrent");
+        board = concurrent ? new ConcurrentTaskManager(Managers.getDefaultHistory(100))
+                : new InMemoryTaskManager(Managers.getDefaultHistory(100));
+        lock = concurrent ? null : new Object();
+        // Каждая десятая задача - подзадача, по 100 подзадач на эпик; id эпиков идут после id задач
+        epicCount = Math.max(1, size / 1000);
+        for (int i = 1; i <= epicCount; i++) {
+            board.addEpic(new Epic(size + i, "Epic", "Description", TaskStatus.NEW));
+        }
+        for (int i = 1; i <= size; i++) {
+            if (i % 10 == 0) {
+                board.addSubtask(new Subtask(i, "Subtask", "Description", TaskStatus.NEW, epicOf(i)));
+            } else {
+                board.addTask(new Task(i, "Task", "Description", TaskStatus.NEW));
+            }
+        }
+    }
+
+    private int epicOf(int subtaskId) {
+        return size + 1 + (subtaskId / 10) % epicCount;
+    }
+
+    @Benchmark
+    public Task mixed(Cursor cursor) {
+        int roll = cursor.random.nextInt(10);
+        int id = cursor.random.nextInt(size) + 1;
+        if (lock == null) {
+            return apply(roll, id);
+        }
+        synchronized (lock) {
+            return apply(roll, id);
+        }
+    }
+
+    private Task apply(int roll, int id) {
+        if (id % 10 == 0) {
+            if (roll < 8) {
+                return board.getSubtaskById(id);
+            }
+            return board.updateSubtask(new Subtask(id, "Subtask", "Description",
+                    roll == 8 ? TaskStatus.DONE : TaskStatus.NEW, epicOf(id)));
+        }
+        if (roll < 8) {
+            return board.getTaskById(id);
+        }
+        return board.updateTask(new Task(id, "Task", "Description",
+                roll == 8 ? TaskStatus.IN_PROGRESS : TaskStatus.NEW));
+    }
+}
@@ -0,0 +1,76 @@
+package managers;
+
+import app.Managers;
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Статус и время эпика из subtasks подзадач: инкрементальный учёт при обновлении одной подзадачи
+// и полный пересчёт через updateStatus
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class EpicRollupBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final Duration HALF_HOUR = Duration.ofMinutes(30);
+
+    @Param({"100", "10000", "100000"})
+    private int subtasks;
+
+    private InMemoryTaskManager manager;
+    private Epic epic;
+    private Subtask[] updates;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager(Managers.getDefaultHistory(100), new IdAllocator());
+        int epicId = subtasks + 1;
+        epic = manager.addEpic(new Epic(epicId, "Epic", "Description", TaskStatus.NEW));
+        for (int i = 1; i <= subtasks; i++) {
+            manager.addSubtask(new Subtask(i, "Subtask", "Description", TaskStatus.IN_PROGRESS, HALF_HOUR,
+                    START.plusHours(i), epicId));
+        }
+        // Обновления меняют статус случайной подзадачи, время остаётся прежним
+        TaskStatus[] statuses = TaskStatus.values();
+        Random random = new Random(42);
+        updates = new Subtask[1 << 12];
+        for (int i = 0; i < updates.length; i++) {
+            int id = random.nextInt(subtasks) + 1;
+            updates[i] = new Subtask(id, "Subtask", "Description", statuses[random.nextInt(statuses.length)],
+                    HALF_HOUR, START.plusHours(id), epicId);
+        }
+    }
+
+    @Benchmark
+    public Subtask updateSubtask() {
+        position = (position + 1) & (updates.length - 1);
+        return manager.updateSubtask(updates[position]);
+    }
+
+    @Benchmark
+    public TaskStatus recalculateEpic() {
+        manager.updateStatus(epic);
+        return epic.getStatus();
+    }
+}
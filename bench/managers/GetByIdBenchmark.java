@@ -0,0 +1,89 @@
+package managers;
+
+import app.Managers;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Время get*ById на доске из size задач: поиск в хранилище и запись просмотра в историю
+// (история ограничена, чтобы не расти до размера доски за время замера)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class GetByIdBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private int[] taskIds;
+    private int[] subtaskIds;
+    private int[] epicIds;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager(Managers.getDefaultHistory(100));
+        // Каждая десятая задача - подзадача, по 100 подзадач на эпик; id эпиков идут после id задач
+        int epicCount = Math.max(1, size / 1000);
+        for (int i = 1; i <= epicCount; i++) {
+            manager.addEpic(new Epic(size + i, "Epic", "Description", TaskStatus.NEW));
+        }
+        for (int i = 1; i <= size; i++) {
+            if (i % 10 == 0) {
+                manager.addSubtask(new Subtask(i, "Subtask", "Description", TaskStatus.NEW,
+                        size + 1 + (i / 10) % epicCount));
+            } else {
+                manager.addTask(new Task(i, "Task", "Description", TaskStatus.NEW));
+            }
+        }
+        Random random = new Random(42);
+        taskIds = new int[1 << 16];
+        subtaskIds = new int[1 << 16];
+        epicIds = new int[1 << 16];
+        for (int i = 0; i < taskIds.length; i++) {
+            int id = random.nextInt(size) + 1;
+            taskIds[i] = id % 10 == 0 ? id - 1 : id;
+            subtaskIds[i] = Math.max(10, id - id % 10);
+            epicIds[i] = size + 1 + random.nextInt(epicCount);
+        }
+    }
+
+    private int next() {
+        position = (position + 1) & (taskIds.length - 1);
+        return position;
+    }
+
+    @Benchmark
+    public Task getTaskById() {
+        return manager.getTaskById(taskIds[next()]);
+    }
+
+    @Benchmark
+    public Subtask getSubtaskById() {
+        return manager.getSubtaskById(subtaskIds[next()]);
+    }
+
+    @Benchmark
+    public Epic getEpicById() {
+        return manager.getEpicById(epicIds[next()]);
+    }
+}
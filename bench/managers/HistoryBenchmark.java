@@ -0,0 +1,64 @@
+package managers;
+
+import model.Task;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// История из size различных задач: повторный просмотр случайной задачи (перенос в конец списка)
+// и копия истории в getHistory
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class HistoryBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int size;
+
+    private InMemoryHistoryManager history;
+    private Task[] views;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        history = new InMemoryHistoryManager();
+        Task[] tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1, "Task", "Description", TaskStatus.NEW);
+            history.add(tasks[i]);
+        }
+        Random random = new Random(42);
+        views = new Task[1 << 12];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = tasks[random.nextInt(size)];
+        }
+    }
+
+    @Benchmark
+    public InMemoryHistoryManager add() {
+        position = (position + 1) & (views.length - 1);
+        history.add(views[position]);
+        return history;
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,102 @@
+package managers;
+
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Полная запись снимка (save) и загрузка (loadFromFile) доски из rows строк в формате format.
+// Доска заполняется одним пакетом, то есть одной записью файла
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    @Param({"CSV", "BINARY"})
+    private SnapshotFormat format;
+
+    private Path directory;
+    private File file;
+    private PersistenceSettings settings;
+    private FileBackedTaskManager manager;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("kanban-bench");
+        file = directory.resolve("tasks.csv").toFile();
+        settings = new PersistenceSettings();
+        settings.setSnapshotFormat(format);
+        settings.setHistoryPersistence(HistoryPersistence.ON_CLOSE);
+        manager = new FileBackedTaskManager(file, settings, new IdAllocator());
+        // Каждая десятая строка - подзадача, по 100 подзадач на эпик; половина задач в расписании
+        int epicCount = Math.max(1, rows / 1000);
+        TaskBatch batch = new TaskBatch();
+        for (int i = 1; i <= epicCount; i++) {
+            batch.add(new Epic(rows + i, "Epic", "Description", TaskStatus.NEW));
+        }
+        for (int i = 1; i <= rows - epicCount; i++) {
+            LocalDateTime start = i % 2 == 0 ? START.plusHours(i) : null;
+            Duration duration = start != null ? Duration.ofMinutes(30) : Duration.ZERO;
+            if (i % 10 == 0) {
+                batch.add(new Subtask(i, "Subtask", "Description", TaskStatus.DONE, duration, start,
+                        rows + 1 + (i / 10) % epicCount));
+            } else {
+                batch.add(new Task(i, "Task", "Description", duration, start, TaskStatus.IN_PROGRESS));
+            }
+        }
+        manager.applyBatch(batch);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        manager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public File save() {
+        manager.save();
+        return file;
+    }
+
+    @Benchmark
+    public StoreSizes loadFromFile() {
+        try (FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file, settings, new IdAllocator())) {
+            return loaded.getStoreSizes();
+        }
+    }
+}
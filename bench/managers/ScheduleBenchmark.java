@@ -0,0 +1,100 @@
+package managers;
+
+import app.Managers;
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Добавление в расписание из size задач: проверка пересечений, вставка в расписание и, для подзадачи,
+// пересчёт эпика. Задачи идут через час, новая ставится в случайный свободный час и сразу удаляется,
+// чтобы размер расписания не менялся за время замера, поэтому в результат входит и удаление
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class ScheduleBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private InMemoryTaskManager manager;
+    private int epicId;
+    private int newId;
+    private LocalDateTime[] freeSlots;
+    private int position;
+
+    @Setup
+    public void setUp() {
+        manager = new InMemoryTaskManager(Managers.getDefaultHistory(100), new IdAllocator());
+        // Каждая десятая задача расписания - подзадача, по 100 подзадач на эпик
+        int epicCount = Math.max(1, size / 1000);
+        epicId = size + 1;
+        for (int i = 0; i < epicCount; i++) {
+            manager.addEpic(new Epic(epicId + i, "Epic", "Description", TaskStatus.NEW));
+        }
+        for (int i = 1; i <= size; i++) {
+            LocalDateTime start = START.plusHours(2L * i);
+            if (i % 10 == 0) {
+                manager.addSubtask(new Subtask(i, "Subtask", "Description", TaskStatus.NEW, HOUR, start,
+                        epicId + (i / 10) % epicCount));
+            } else {
+                manager.addTask(new Task(i, "Task", "Description", HOUR, start, TaskStatus.NEW));
+            }
+        }
+        newId = epicId + epicCount;
+        Random random = new Random(42);
+        freeSlots = new LocalDateTime[1 << 12];
+        for (int i = 0; i < freeSlots.length; i++) {
+            freeSlots[i] = START.plusHours(2L * (random.nextInt(size) + 1) + 1);
+        }
+    }
+
+    private LocalDateTime nextFreeSlot() {
+        position = (position + 1) & (freeSlots.length - 1);
+        return freeSlots[position];
+    }
+
+    @Benchmark
+    public Task addTask() {
+        Task task = manager.addTask(new Task(newId, "Task", "Description", HOUR, nextFreeSlot(), TaskStatus.NEW));
+        manager.deleteTaskById(newId);
+        return task;
+    }
+
+    @Benchmark
+    public Subtask addSubtask() {
+        Subtask subtask = manager.addSubtask(new Subtask(newId, "Subtask", "Description", TaskStatus.NEW, HOUR,
+                nextFreeSlot(), epicId));
+        manager.deleteSubtaskById(newId);
+        return subtask;
+    }
+
+    // Копия всего расписания
+    @Benchmark
+    public List<Task> getPrioritizedTasks() {
+        return manager.getPrioritizedTasks();
+    }
+}
@@ -0,0 +1,125 @@
+package util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Сравнивает два результата JMH в формате CSV (-rf csv) и печатает изменения по каждому замеру.
+// Регрессия - ухудшение больше порога (по умолчанию 10%), которое к тому же больше суммы погрешностей
+// обоих замеров. При регрессиях программа завершается с кодом 1, так что её можно ставить
+// последним шагом проверки перед релизом:
+//   java -cp bench-out util.BenchmarkComparison baseline.csv current.csv [порог в процентах]
+public class BenchmarkComparison {
+
+    private record Result(String key, String mode, double score, double error, String unit) {
+        // Для пропускной способности лучше больше, для остальных режимов JMH - меньше
+        double worseningPercent(Result baseline) {
+            double change = (score - baseline.score) / baseline.score * 100;
+            return mode.equals("thrpt") ? -change : change;
+        }
+
+        boolean beyondErrors(Result baseline) {
+            double errors = (Double.isNaN(error) ? 0 : error) + (Double.isNaN(baseline.error) ? 0 : baseline.error);
+            return Math.abs(score - baseline.score) > errors;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Использование: BenchmarkComparison baseline.csv current.csv [порог в процентах]");
+            System.exit(2);
+        }
+        Map<String, Result> baseline = read(Path.of(args[0]));
+        Map<String, Result> current = read(Path.of(args[1]));
+        double threshold = args.length == 3 ? Double.parseDouble(args[2]) : 10;
+
+        int regressions = 0;
+        for (Result result : current.values()) {
+            Result before = baseline.get(result.key());
+            if (before == null || !before.unit().equals(result.unit())) {
+                System.out.printf(Locale.ROOT, "%-70s %14.3f %-6s  новый замер%n", result.key(), result.score(),
+                        result.unit());
+                continue;
+            }
+            double worsening = result.worseningPercent(before);
+            boolean regression = worsening > threshold && result.beyondErrors(before);
+            if (regression) {
+                regressions++;
+            }
+            System.out.printf(Locale.ROOT, "%-70s %14.3f -> %14.3f %-6s %+7.1f%%%s%n", result.key(),
+                    before.score(), result.score(), result.unit(), worsening, regression ? "  РЕГРЕССИЯ" : "");
+        }
+        for (String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                System.out.printf(Locale.ROOT, "%-70s нет в текущем результате%n", key);
+            }
+        }
+        System.out.printf(Locale.ROOT, "Регрессий больше %.1f%%: %d%n", threshold, regressions);
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Ключ замера - имя бенчмарка, режим и значения параметров
+    private static Map<String, Result> read(Path file) throws IOException {
+        List<String> lines = Files.readAllLines(file);
+        if (lines.isEmpty()) {
+            throw new IllegalArgumentException("Пустой файл результатов: " + file);
+        }
+        List<String> header = parseLine(lines.get(0));
+        int benchmark = header.indexOf("Benchmark");
+        int mode = header.indexOf("Mode");
+        int score = header.indexOf("Score");
+        int error = header.indexOf("Score Error (99.9%)");
+        int unit = header.indexOf("Unit");
+        if (benchmark < 0 || mode < 0 || score < 0 || error < 0 || unit < 0) {
+            throw new IllegalArgumentException("Файл не похож на CSV-результат JMH: " + file);
+        }
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = parseLine(line);
+            StringBuilder key = new StringBuilder(fields.get(benchmark)).append(' ').append(fields.get(mode));
+            for (int i = 0; i < header.size(); i++) {
+                if (header.get(i).startsWith("Param: ") && !fields.get(i).isEmpty()) {
+                    key.append(' ').append(header.get(i).substring(7)).append('=').append(fields.get(i));
+                }
+            }
+            results.put(key.toString(), new Result(key.toString(), fields.get(mode),
+                    Double.parseDouble(fields.get(score)), Double.parseDouble(fields.get(error)), fields.get(unit)));
+        }
+        return results;
+    }
+
+    // Поля через запятую, строки JMH берёт в двойные кавычки
+    private static List<String> parseLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
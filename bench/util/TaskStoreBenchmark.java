@@ -0,0 +1,90 @@
+package util;
+
+import model.Task;
+import model.enums.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение LinkedHashMap<Integer, Task> и IntHashMap<Task> на 1M задач: время get по случайному id
+// и занимаемая хранилищем память. Память считается в setup по разнице занятой кучи после сборки мусора
+// и печатается в вывод форка, строкой "bytes/entry".
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class TaskStoreBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"LinkedHashMap", "IntHashMap"})
+    private String store;
+
+    private Task[] tasks;
+    private Map<Integer, Task> linkedHashMap;
+    private IntHashMap<Task> intHashMap;
+    private int[] lookups;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tasks = new Task[size];
+        for (int i = 0; i < size; i++) {
+            tasks[i] = new Task(i + 1, "Task", "Description", TaskStatus.NEW);
+        }
+        long before = usedMemory();
+        if (store.equals("LinkedHashMap")) {
+            linkedHashMap = new LinkedHashMap<>();
+            for (Task task : tasks) {
+                linkedHashMap.put(task.getId(), task);
+            }
+        } else {
+            intHashMap = new IntHashMap<>();
+            for (Task task : tasks) {
+                intHashMap.put(task.getId(), task);
+            }
+        }
+        System.out.printf("%n%s: %.1f bytes/entry%n", store, (double) (usedMemory() - before) / size);
+        lookups = new int[1 << 16];
+        Random random = new Random(42);
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = random.nextInt(size) + 1;
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private int nextId() {
+        position = (position + 1) & (lookups.length - 1);
+        return lookups[position];
+    }
+
+    @Benchmark
+    public Task get() {
+        int id = nextId();
+        return linkedHashMap != null ? linkedHashMap.get(id) : intHashMap.get(id);
+    }
+}
@@ -1,8 +1,12 @@
 package app;
 
+import managers.ConcurrentTaskManager;
 import managers.HistoryManager;
 import managers.InMemoryHistoryManager;
 import managers.InMemoryTaskManager;
+import managers.InstrumentedHistoryManager;
+import managers.InstrumentedTaskManager;
+import managers.ManagerMetrics;
 import managers.TaskManager;
 
 public class Managers {
@@ -11,7 +15,27 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    // Для доступа к менеджеру из нескольких потоков без внешней блокировки
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager();
+    }
+
+    // Менеджер с замерами вызовов и размеров, опубликованными в JMX под именем name.
+    // Метрики выключаются через ManagerMetrics.setEnabled(false), в том числе из JMX-консоли
+    public static InstrumentedTaskManager getInstrumented(String name) {
+        ManagerMetrics metrics = new ManagerMetrics(name);
+        TaskManager manager = new InMemoryTaskManager(new InstrumentedHistoryManager(getDefaultHistory(), metrics));
+        InstrumentedTaskManager instrumented = new InstrumentedTaskManager(manager, metrics);
+        metrics.register();
+        return instrumented;
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
+
+    // История из последних capacity различных просмотров
+    public static HistoryManager getDefaultHistory(int capacity) {
+        return new InMemoryHistoryManager(capacity);
+    }
 }
@@ -0,0 +1,59 @@
+package managers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Атомарная замена файла снимка: содержимое пишется во временный файл в том же каталоге, сбрасывается
+// на диск и переименовывается на место. Прежний снимок остаётся предыдущим поколением (.prev).
+// При сбое на любом шаге на диске остаётся либо старый снимок, либо новый целиком.
+final class AtomicFiles {
+    interface Content {
+        void writeTo(File temp) throws IOException;
+    }
+
+    private AtomicFiles() {
+    }
+
+    static File previousGeneration(File file) {
+        return new File(file.getPath() + ".prev");
+    }
+
+    static void replace(File target, Content content) throws IOException {
+        File temp = new File(target.getPath() + ".tmp");
+        try {
+            content.writeTo(temp);
+            try (FileChannel channel = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        } catch (IOException | RuntimeException e) {
+            temp.delete();
+            throw e;
+        }
+        if (target.exists()) {
+            // Между переименованиями снимка на месте нет: загрузка возьмёт предыдущее поколение
+            Files.move(target.toPath(), previousGeneration(target).toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory(target);
+    }
+
+    // Фиксирует переименования. Windows не даёт открыть каталог как файл - там полагаемся на ОС,
+    // остальные ошибки означают, что переименование может не пережить сбой, и сообщаются вызывающему
+    private static void syncDirectory(File file) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+}
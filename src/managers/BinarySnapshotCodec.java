@@ -0,0 +1,182 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+// Двоичный снимок: заголовок (магическое число, версия, количество задач), записи задач,
+// история, high-water mark генератора id (с версии 2), номер последнего сегмента журнала, уже вошедшего
+// в снимок (с версии 3), и CRC32 всего предшествующего содержимого.
+// Запись задачи: тип, id, статус, имя и описание (длина + UTF-8), начало в минутах от эпохи (UTC),
+// продолжительность в минутах, для подзадачи - id эпика. Секунды времени начала не сохраняются.
+public class BinarySnapshotCodec {
+    private static final int MAGIC = 0x4A4B4253; // "JKBS"
+    private static final int VERSION = 3;
+    private static final int NO_TIME = Integer.MIN_VALUE;
+    private static final int NO_DURATION = -1;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    public record Snapshot(List<Task> tasks, List<Task> history, int nextId, int journalSegment) {
+    }
+
+    public static boolean isBinary(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    public static void write(File file, Collection<Task> tasks, Collection<Epic> epics,
+                             Collection<Subtask> subtasks, List<Task> history, int nextId, int journalSegment)
+            throws IOException {
+        try (FileOutputStream fileOut = new FileOutputStream(file)) {
+            CheckedOutputStream checked = new CheckedOutputStream(fileOut, new CRC32());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(checked, 64 * 1024));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(tasks.size() + epics.size() + subtasks.size());
+            for (Task task : tasks) {
+                writeTask(out, task);
+            }
+            for (Epic epic : epics) {
+                writeTask(out, epic);
+            }
+            for (Subtask subtask : subtasks) {
+                writeTask(out, subtask);
+            }
+            out.writeInt(history.size());
+            for (Task task : history) {
+                writeTask(out, task);
+            }
+            out.writeInt(nextId);
+            out.writeInt(journalSegment);
+            out.flush();
+            new DataOutputStream(fileOut).writeInt((int) checked.getChecksum().getValue());
+        }
+    }
+
+    public static Snapshot read(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (bytes.length < 16) {
+            throw new ManagerSaveException("Снимок повреждён: " + file.getName());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length - 4);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt(bytes.length - 4) != (int) crc.getValue()) {
+            throw new ManagerSaveException("Контрольная сумма снимка не совпадает: " + file.getName());
+        }
+        buffer.limit(bytes.length - 4);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new ManagerSaveException("Файл не является двоичным снимком: " + file.getName());
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > VERSION) {
+                throw new ManagerSaveException("Неподдерживаемая версия снимка " + version + ": " + file.getName());
+            }
+            List<Task> tasks = readTasks(buffer, buffer.getInt());
+            List<Task> history = readTasks(buffer, buffer.getInt());
+            int nextId = version >= 2 ? buffer.getInt() : 0;
+            int journalSegment = version >= 3 ? buffer.getInt() : 0;
+            return new Snapshot(tasks, history, nextId, journalSegment);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new ManagerSaveException("Снимок повреждён: " + file.getName(), e);
+        }
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(task.getTaskType().ordinal());
+        out.writeInt(task.getId());
+        out.writeByte(task.getStatus().ordinal());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        LocalDateTime startTime = task.getStartTime();
+        out.writeInt(startTime == null ? NO_TIME
+                : minutesField(Math.floorDiv(startTime.toEpochSecond(ZoneOffset.UTC), 60), NO_TIME, task));
+        out.writeInt(task.getDuration() == null ? NO_DURATION
+                : minutesField(task.getDuration().toMinutes(), NO_DURATION, task));
+        if (task instanceof Subtask subtask) {
+            out.writeInt(subtask.getEpicId());
+        }
+    }
+
+    // Минуты хранятся в int, это около 4000 лет в обе стороны от 1970 года. Значение вне диапазона
+    // или совпадающее с меткой отсутствия (reserved) записать нельзя
+    private static int minutesField(long minutes, int reserved, Task task) {
+        if (minutes == reserved || minutes < Integer.MIN_VALUE || minutes > Integer.MAX_VALUE) {
+            throw new ManagerSaveException("Время задачи " + task.getId() + " не помещается в двоичный снимок.");
+        }
+        return (int) minutes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static List<Task> readTasks(ByteBuffer buffer, int count) {
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(readTask(buffer));
+        }
+        return tasks;
+    }
+
+    private static Task readTask(ByteBuffer buffer) {
+        TaskType type = TASK_TYPES[buffer.get()];
+        int id = buffer.getInt();
+        TaskStatus status = TASK_STATUSES[buffer.get()];
+        String name = readString(buffer);
+        String description = readString(buffer);
+        int startMinutes = buffer.getInt();
+        int durationMinutes = buffer.getInt();
+        LocalDateTime startTime = startMinutes == NO_TIME ? null
+                : LocalDateTime.ofEpochSecond(startMinutes * 60L, 0, ZoneOffset.UTC);
+        Duration duration = durationMinutes == NO_DURATION ? null : Duration.ofMinutes(durationMinutes);
+        return switch (type) {
+            case TASK -> new Task(id, name, description, duration, startTime, status);
+            case EPIC -> new Epic(id, name, description, status);
+            case SUBTASK -> new Subtask(id, name, description, status, duration, startTime, buffer.getInt());
+        };
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,794 @@
+package managers;
+
+import app.Managers;
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Потокобезопасный менеджер: чтение идёт без блокировок, запись блокирует только свой id,
+// эпик на время пересчёта статуса и времени и расписание на время проверки пересечений.
+// Порядок захвата блокировок: id -> эпик -> расписание -> история.
+// Как и InMemoryTaskManager, хранит копии переданных задач и отдаёт копии хранимых
+// Поиск по id в ConcurrentSkipListMap заметно дороже, чем в IntHashMap: в одном потоке менеджер
+// медленнее InMemoryTaskManager за общей блокировкой (см. ConcurrentManagerBenchmark) и окупается
+// только при нескольких ядрах
+public class ConcurrentTaskManager implements TaskManager {
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentSkipListMap<Integer, Task> tasks = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Epic> epics = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Subtask> subtasks = new ConcurrentSkipListMap<>();
+    private final HistoryManager historyManager;
+    private final ConcurrentSkipListMap<Slot, Task> prioritizedTasks = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Slot> slotsById = new ConcurrentHashMap<>();
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    private boolean scheduleValidated;  // меняется и читается под scheduleLock
+    private final Object[] idLocks = newLocks();
+    private final Object[] epicLocks = newLocks();
+    private final IdAllocator idAllocator;
+    // Вторичный индекс тип -> статус -> задачи; задача переиндексируется под той же блокировкой,
+    // под которой меняется (id для задач и подзадач, эпик для эпиков)
+    private final Map<TaskType, Map<TaskStatus, ConcurrentSkipListMap<Integer, Task>>> statusIndex =
+            new EnumMap<>(TaskType.class);
+    // Полнотекстовый индекс один на всех и меняется под собственной блокировкой
+    private final TextIndex textIndex = new TextIndex();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory(), new IdAllocator());
+    }
+
+    public ConcurrentTaskManager(IdAllocator idAllocator) {
+        this(Managers.getDefaultHistory(), idAllocator);
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this(historyManager, new IdAllocator());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, IdAllocator idAllocator) {
+        this.historyManager = historyManager;
+        this.idAllocator = idAllocator;
+        for (TaskType type : TaskType.values()) {
+            Map<TaskStatus, ConcurrentSkipListMap<Integer, Task>> byStatus = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new ConcurrentSkipListMap<>());
+            }
+            statusIndex.put(type, byStatus);
+        }
+    }
+
+    @Override
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    // size() у ConcurrentSkipListMap обходит элементы, поэтому размеры хранилищ считаются за O(n)
+    @Override
+    public StoreSizes getStoreSizes() {
+        int indexedWords;
+        synchronized (textIndex) {
+            indexedWords = textIndex.termCount();
+        }
+        int history;
+        synchronized (historyManager) {
+            history = historyManager.size();
+        }
+        return new StoreSizes(tasks.size(), epics.size(), subtasks.size(), slotsById.size(), indexedWords, history);
+    }
+
+    // Интервал задачи в расписании; запоминается отдельно, чтобы изменение объекта задачи снаружи
+    // не ломало порядок в индексе
+    private record Slot(LocalDateTime start, LocalDateTime end, int id) implements Comparable<Slot> {
+        @Override
+        public int compareTo(Slot other) {
+            int cmp = start.compareTo(other.start);
+            return cmp != 0 ? cmp : Integer.compare(id, other.id);
+        }
+
+        boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+            return otherStart.isBefore(end) && start.isBefore(otherEnd);
+        }
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private Object idLock(int id) {
+        return idLocks[Math.floorMod(id, LOCK_STRIPES)];
+    }
+
+    private Object epicLock(int epicId) {
+        return epicLocks[Math.floorMod(epicId, LOCK_STRIPES)];
+    }
+
+    private static boolean isScheduled(Task task) {
+        return task.getStartTime() != null && task.getDuration() != null;
+    }
+
+    // Задачи в расписании не пересекаются, поэтому достаточно пройти назад от последней задачи,
+    // начавшейся раньше end, до первой ненулевой по длительности задачи: она либо пересекается с
+    // интервалом, либо закончилась не позже start, как и все задачи перед ней
+    private boolean hasOverlap(LocalDateTime start, LocalDateTime end, int excludedId) {
+        return findOverlap(start, end, id -> id == excludedId) != null;
+    }
+
+    private boolean hasOverlap(LocalDateTime start, LocalDateTime end, IntPredicate excluded) {
+        return findOverlap(start, end, excluded) != null;
+    }
+
+    private Slot findOverlap(LocalDateTime start, LocalDateTime end, IntPredicate excluded) {
+        for (Slot slot : prioritizedTasks.headMap(new Slot(end, end, Integer.MIN_VALUE)).descendingKeySet()) {
+            if (excluded.test(slot.id())) {
+                continue;
+            }
+            if (slot.overlaps(start, end)) {
+                return slot;
+            }
+            if (slot.start().isBefore(slot.end())) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private LocalDateTime overlapEnd(LocalDateTime start, LocalDateTime end) {
+        Slot slot = findOverlap(start, end, id -> false);
+        return slot == null ? null : slot.end();
+    }
+
+    // Заменяет интервал задачи в расписании; вызывается под блокировкой id задачи
+    private void reschedule(Task task, String overlapMessage) {
+        int id = task.getId();
+        Slot slot = isScheduled(task) ? new Slot(task.getStartTime(), task.getEndTime(), id) : null;
+        if (slot == null && !slotsById.containsKey(id)) {
+            return;
+        }
+        scheduleLock.lock();
+        try {
+            if (slot != null && !scheduleValidated && hasOverlap(slot.start(), slot.end(), id)) {
+                throw new IllegalArgumentException(overlapMessage);
+            }
+            removeSlot(id);
+            if (slot != null) {
+                slotsById.put(id, slot);
+                prioritizedTasks.put(slot, task);
+            }
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void unschedule(int id) {
+        if (!slotsById.containsKey(id)) {
+            return;
+        }
+        scheduleLock.lock();
+        try {
+            removeSlot(id);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    private void removeSlot(int id) {
+        Slot old = slotsById.remove(id);
+        if (old != null) {
+            prioritizedTasks.remove(old);
+        }
+    }
+
+    private void index(Task task) {
+        for (Map.Entry<TaskStatus, ConcurrentSkipListMap<Integer, Task>> entry
+                : statusIndex.get(task.getTaskType()).entrySet()) {
+            if (entry.getKey() == task.getStatus()) {
+                entry.getValue().put(task.getId(), task);
+            } else {
+                entry.getValue().remove(task.getId());
+            }
+        }
+    }
+
+    private void unindex(TaskType type, int id) {
+        for (ConcurrentSkipListMap<Integer, Task> bucket : statusIndex.get(type).values()) {
+            bucket.remove(id);
+        }
+        synchronized (textIndex) {
+            textIndex.remove(id);
+        }
+    }
+
+    private void indexText(Task task) {
+        synchronized (textIndex) {
+            textIndex.add(task);
+        }
+    }
+
+    // Id нужен до взятия блокировки по id, поэтому назначается (или занимается в генераторе)
+    // в начале добавления, даже если подзадача потом не будет добавлена из-за отсутствия эпика
+    private void assignId(Task task) {
+        if (task.getId() == Task.NO_ID) {
+            task.assignId(idAllocator.nextId());
+        } else {
+            idAllocator.claim(task.getId());
+        }
+    }
+
+    // Задачи и подзадачи после записи в хранилище не меняются и копируются без блокировок;
+    // агрегаты эпика пересчитываются на месте, поэтому эпик копируется под своей блокировкой
+    private <T extends Task> T copyOut(T task) {
+        if (task instanceof Epic) {
+            synchronized (epicLock(task.getId())) {
+                return InMemoryTaskManager.copyOf(task);
+            }
+        }
+        return InMemoryTaskManager.copyOf(task);
+    }
+
+    private <T extends Task> List<T> copyOut(Collection<? extends T> stored) {
+        List<T> result = new ArrayList<>(stored.size());
+        for (T task : stored) {
+            result.add(copyOut(task));
+        }
+        return result;
+    }
+
+    private void addToHistory(Task task) {
+        synchronized (historyManager) {
+            historyManager.add(task);
+        }
+    }
+
+    private void removeFromHistory(int id) {
+        synchronized (historyManager) {
+            historyManager.remove(id);
+        }
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        ArrayList<Task> allTasks = new ArrayList<>(tasks.values());
+        synchronized (historyManager) {
+            historyManager.addAll(allTasks);
+        }
+        allTasks.replaceAll(Task::copy);
+        return allTasks;
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        ArrayList<Subtask> allSubtasks = new ArrayList<>(subtasks.values());
+        synchronized (historyManager) {
+            historyManager.addAll(allSubtasks);
+        }
+        allSubtasks.replaceAll(Subtask::copy);
+        return allSubtasks;
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        ArrayList<Epic> allEpics = new ArrayList<>(epics.values());
+        for (int i = 0; i < allEpics.size(); i++) {
+            Epic epic = allEpics.get(i);
+            // Копия эпика для истории читает список подзадач, который меняется под блокировкой эпика
+            synchronized (epicLock(epic.getId())) {
+                addToHistory(epic);
+                allEpics.set(i, epic.copy());
+            }
+        }
+        return allEpics;
+    }
+
+    // Страницы и потоки идут по слабо согласованным представлениям хранилищ без блокировок
+    @Override
+    public TaskPage<Task> getTasksPage(int afterId, int limit, Predicate<? super Task> filter) {
+        return TaskPage.collect(tasks.tailMap(afterId, false).values().stream().map(this::copyOut).iterator(),
+                afterId, limit, filter);
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(int afterId, int limit, Predicate<? super Subtask> filter) {
+        return TaskPage.collect(subtasks.tailMap(afterId, false).values().stream().map(this::copyOut).iterator(),
+                afterId, limit, filter);
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(int afterId, int limit, Predicate<? super Epic> filter) {
+        return TaskPage.collect(epics.tailMap(afterId, false).values().stream().map(this::copyOut).iterator(),
+                afterId, limit, filter);
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return tasks.values().stream().map(this::copyOut);
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return subtasks.values().stream().map(this::copyOut);
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return epics.values().stream().map(this::copyOut);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        for (Integer id : tasks.keySet()) {
+            deleteTaskById(id);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        for (Integer id : epics.keySet()) {
+            deleteEpicById(id);
+        }
+        for (Integer id : subtasks.keySet()) {
+            deleteSubtaskById(id);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        for (Integer id : subtasks.keySet()) {
+            deleteSubtaskById(id);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        Task task = tasks.get(id);
+        if (task != null) {
+            addToHistory(task);
+            return task.copy();
+        }
+        return null;
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        Epic epic = epics.get(id);
+        if (epic != null) {
+            synchronized (epicLock(id)) {
+                addToHistory(epic);
+                return epic.copy();
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask != null) {
+            addToHistory(subtask);
+            return subtask.copy();
+        }
+        return null;
+    }
+
+    @Override
+    public Task addTask(Task newTask) {
+        assignId(newTask);
+        Task task = newTask.copy();
+        synchronized (idLock(task.getId())) {
+            reschedule(task, "Задача пересекается по времени с существующей.");
+            tasks.put(task.getId(), task);
+            index(task);
+            indexText(task);
+        }
+        return newTask;
+    }
+
+    @Override
+    public Epic addEpic(Epic newEpic) {
+        assignId(newEpic);
+        // Подзадачи попадают в эпик только через addSubtask, поэтому копия начинается без них
+        Epic epic = newEpic.copy();
+        if (!epic.getSubtaskIdSet().isEmpty()) {
+            epic.recalculate(List.of());
+        }
+        synchronized (epicLock(epic.getId())) {
+            epics.put(epic.getId(), epic);
+            index(epic);
+            indexText(epic);
+        }
+        return newEpic;
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask newSubtask) {
+        int epicId = newSubtask.getEpicId();
+        assignId(newSubtask);
+        Subtask subtask = newSubtask.copy();
+        synchronized (idLock(subtask.getId())) {
+            synchronized (epicLock(epicId)) {
+                Epic epic = epics.get(epicId);
+                if (epic != null) {
+                    reschedule(subtask, "Подзадача пересекается по времени с существующей.");
+                    subtasks.put(subtask.getId(), subtask);
+                    epic.applySubtask(subtask);
+                    index(subtask);
+                    index(epic);
+                    indexText(subtask);
+                }
+            }
+        }
+        return newSubtask;
+    }
+
+    @Override
+    public Task updateTask(Task updatedTask) {
+        synchronized (idLock(updatedTask.getId())) {
+            if (tasks.containsKey(updatedTask.getId())) {
+                Task task = updatedTask.copy();
+                reschedule(task, "Задача пересекается по времени с существующей.");
+                tasks.put(task.getId(), task);
+                index(task);
+                indexText(task);
+            }
+        }
+        return updatedTask;
+    }
+
+    @Override
+    public Epic updateEpic(Epic updatedEpic) {
+        synchronized (epicLock(updatedEpic.getId())) {
+            Epic stored = epics.get(updatedEpic.getId());
+            if (stored != null) {
+                // Из переданного эпика берутся имя и описание; состав подзадач и агрегаты ведёт менеджер
+                Epic epic = updatedEpic.copy();
+                epic.recalculate(subtasksOf(stored));
+                epics.put(epic.getId(), epic);
+                index(epic);
+                indexText(epic);
+            }
+        }
+        return updatedEpic;
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask updatedSubtask) {
+        int epicId = updatedSubtask.getEpicId();
+        synchronized (idLock(updatedSubtask.getId())) {
+            Subtask stored = subtasks.get(updatedSubtask.getId());
+            if (stored == null) {
+                return updatedSubtask;
+            }
+            // Подзадача может перейти в другой эпик: блокировки обоих эпиков берутся по возрастанию полосы
+            int oldEpicId = stored.getEpicId();
+            boolean newFirst = Math.floorMod(epicId, LOCK_STRIPES) <= Math.floorMod(oldEpicId, LOCK_STRIPES);
+            synchronized (epicLock(newFirst ? epicId : oldEpicId)) {
+                synchronized (epicLock(newFirst ? oldEpicId : epicId)) {
+                    // Обновление с несуществующим эпиком игнорируется
+                    Epic epic = epics.get(epicId);
+                    if (epic == null) {
+                        return updatedSubtask;
+                    }
+                    Subtask subtask = updatedSubtask.copy();
+                    reschedule(subtask, "Подзадача пересекается по времени с существующей.");
+                    subtasks.put(subtask.getId(), subtask);
+                    index(subtask);
+                    indexText(subtask);
+                    if (oldEpicId != epicId) {
+                        Epic oldEpic = epics.get(oldEpicId);
+                        if (oldEpic != null) {
+                            oldEpic.removeSubtaskId(subtask.getId());
+                            index(oldEpic);
+                        }
+                    }
+                    epic.applySubtask(subtask);
+                    index(epic);
+                }
+            }
+        }
+        return updatedSubtask;
+    }
+
+    @Override
+    public void updateStatus(Epic epic) {
+        synchronized (epicLock(epic.getId())) {
+            Epic stored = epics.get(epic.getId());
+            if (stored != null) {
+                refreshEpic(stored);
+            }
+        }
+    }
+
+    // Полный пересчёт статуса и времени эпика; вызывается под блокировкой эпика
+    private void refreshEpic(Epic epic) {
+        epic.recalculate(subtasksOf(epic));
+        index(epic);
+    }
+
+    private List<Subtask> subtasksOf(Epic epic) {
+        List<Subtask> epicSubtasks = new ArrayList<>();
+        for (PrimitiveIterator.OfInt it = epic.getSubtaskIdSet().iterator(); it.hasNext(); ) {
+            Subtask subtask = subtasks.get(it.nextInt());
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return epicSubtasks;
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        synchronized (idLock(id)) {
+            if (tasks.remove(id) != null) {
+                unschedule(id);
+                unindex(TaskType.TASK, id);
+                removeFromHistory(id);
+            }
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        int[] subtaskIds;
+        synchronized (epicLock(id)) {
+            Epic epic = epics.remove(id);
+            if (epic == null) {
+                return;
+            }
+            // После удаления эпика из хранилища к нему уже нельзя добавить подзадачу
+            subtaskIds = epic.getSubtaskIdSet().toArray();
+            epic.deleteAllSubtasksIds();
+            unindex(TaskType.EPIC, id);
+            removeFromHistory(id);
+        }
+        for (int subtaskId : subtaskIds) {
+            deleteSubtask(subtaskId, id);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        deleteSubtask(id, Task.NO_ID);
+    }
+
+    // Если epicId задан, подзадача удаляется, только пока принадлежит этому эпику: после удаления
+    // эпика её могли успеть перенести в другой
+    private void deleteSubtask(int id, int epicId) {
+        synchronized (idLock(id)) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask == null || (epicId != Task.NO_ID && subtask.getEpicId() != epicId)) {
+                return;
+            }
+            synchronized (epicLock(subtask.getEpicId())) {
+                subtasks.remove(id);
+                unschedule(id);
+                unindex(TaskType.SUBTASK, id);
+                removeFromHistory(id);
+                Epic epic = epics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.removeSubtaskId(id);
+                    index(epic);
+                }
+            }
+        }
+    }
+
+    @Override
+    public ArrayList<Integer> getSubtasksIdsOfEpic(Epic epic) {
+        synchronized (epicLock(epic.getId())) {
+            Epic stored = epics.get(epic.getId());
+            return stored != null ? stored.getSubtasksIds() : new ArrayList<>();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        synchronized (historyManager) {
+            return historyManager.getHistory();
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (Map<TaskStatus, ConcurrentSkipListMap<Integer, Task>> byStatus : statusIndex.values()) {
+            result.addAll(copyOut(byStatus.get(status).values()));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        return copyOut(statusIndex.get(type).get(status).values());
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(int epicId) {
+        synchronized (epicLock(epicId)) {
+            Epic epic = epics.get(epicId);
+            return epic == null ? new ArrayList<>() : InMemoryTaskManager.copies(subtasksOf(epic));
+        }
+    }
+
+    // Задача, удалённая между поиском и чтением хранилища, в ответ не попадает
+    @Override
+    public List<Task> search(String query, int limit) {
+        TaskPage.checkLimit(limit);
+        List<Integer> ids;
+        synchronized (textIndex) {
+            ids = textIndex.search(query, limit);
+        }
+        List<Task> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Task task = findTask(id);
+            if (task != null) {
+                result.add(copyOut(task));
+            }
+        }
+        return result;
+    }
+
+    // Пакет применяется под всеми блокировками сразу: читатели видят операции по мере применения,
+    // но никакая другая запись не может вклиниться между проверкой и применением
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        batch.assignIds(idAllocator);
+        lockAll(0, () -> {
+            batch.validate(this::findTask, this::hasOverlap);
+            scheduleValidated = true;
+            try {
+                for (TaskBatch.Operation operation : batch.getOperations()) {
+                    applyOperation(operation);
+                }
+            } finally {
+                scheduleValidated = false;
+            }
+        });
+    }
+
+    // Захватывает блокировки в общем порядке: все id, все эпики, расписание
+    private void lockAll(int stripe, Runnable action) {
+        if (stripe < LOCK_STRIPES) {
+            synchronized (idLocks[stripe]) {
+                lockAll(stripe + 1, action);
+            }
+        } else if (stripe < 2 * LOCK_STRIPES) {
+            synchronized (epicLocks[stripe - LOCK_STRIPES]) {
+                lockAll(stripe + 1, action);
+            }
+        } else {
+            scheduleLock.lock();
+            try {
+                action.run();
+            } finally {
+                scheduleLock.unlock();
+            }
+        }
+    }
+
+    private Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    private void applyOperation(TaskBatch.Operation operation) {
+        Task task = operation.task();
+        switch (operation.kind()) {
+            case ADD -> {
+                switch (operation.type()) {
+                    case TASK -> addTask(task);
+                    case EPIC -> addEpic((Epic) task);
+                    case SUBTASK -> addSubtask((Subtask) task);
+                }
+            }
+            case UPDATE -> {
+                switch (operation.type()) {
+                    case TASK -> updateTask(task);
+                    case EPIC -> updateEpic((Epic) task);
+                    case SUBTASK -> updateSubtask((Subtask) task);
+                }
+            }
+            case DELETE -> {
+                switch (operation.type()) {
+                    case TASK -> deleteTaskById(operation.id());
+                    case EPIC -> deleteEpicById(operation.id());
+                    case SUBTASK -> deleteSubtaskById(operation.id());
+                }
+            }
+        }
+    }
+
+    // Под блокировкой расписания, чтобы найденное время не устарело посреди поиска
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        scheduleLock.lock();
+        try {
+            return FreeSlots.find(this::overlapEnd, duration, notBefore, notAfter);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(List<Duration> durations, LocalDateTime notBefore,
+                                             LocalDateTime notAfter) {
+        scheduleLock.lock();
+        try {
+            return FreeSlots.findAll(this::overlapEnd, durations, notBefore, notAfter);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал времени.");
+        }
+        return InMemoryTaskManager.copies(prioritizedTasks.subMap(new Slot(from, from, Integer.MIN_VALUE),
+                new Slot(to, to, Integer.MIN_VALUE)).values());
+    }
+
+    @Override
+    public List<Task> getNextN(LocalDateTime after, int n) {
+        if (after == null || n < 0) {
+            throw new IllegalArgumentException("Некорректные параметры выборки.");
+        }
+        List<Task> result = new ArrayList<>(Math.min(n, 64));
+        for (Task task : prioritizedTasks.tailMap(new Slot(after, after, Integer.MIN_VALUE)).values()) {
+            if (result.size() == n) {
+                break;
+            }
+            result.add(task.copy());
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return InMemoryTaskManager.copies(prioritizedTasks.values());
+    }
+
+    @Override
+    public List<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<Task> result = new ArrayList<>();
+        for (Map.Entry<Slot, Task> entry
+                : prioritizedTasks.headMap(new Slot(end, end, Integer.MIN_VALUE)).descendingMap().entrySet()) {
+            Slot slot = entry.getKey();
+            if (slot.overlaps(start, end)) {
+                result.add(entry.getValue().copy());
+            } else if (slot.start().isBefore(slot.end())) {
+                break;
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+}
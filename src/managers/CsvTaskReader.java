@@ -0,0 +1,372 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+// Потоковое чтение CSV через FileChannel: границы полей запоминаются как смещения в буфере,
+// числа и даты разбираются прямо из байтов, строки создаются только для текстовых полей.
+public class CsvTaskReader implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final TaskType[] TASK_TYPES = TaskType.values();
+    private static final TaskStatus[] TASK_STATUSES = TaskStatus.values();
+
+    private final FileChannel channel;
+    private ByteBuffer buffer;
+    private byte[] array; // массив буфера в куче, для отображённого файла - null
+    private boolean endOfInput;
+    private int position;
+    private int recordStart;
+    private int recordEnd;
+    private int fieldCount;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private boolean[] fieldEscaped = new boolean[16];
+    private byte[] scratch = new byte[256];
+
+    public CsvTaskReader(FileChannel channel, boolean memoryMapped) throws IOException {
+        this.channel = channel;
+        if (memoryMapped) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            endOfInput = true;
+        } else {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            buffer.limit(0);
+            array = buffer.array();
+        }
+    }
+
+    public static CsvTaskReader open(File file, boolean memoryMapped) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            return new CsvTaskReader(channel, memoryMapped);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public boolean next() throws IOException {
+        while (true) {
+            if (endOfInput && position >= buffer.limit()) {
+                return false;
+            }
+            int end = parseRecord(position, endOfInput);
+            if (end >= 0) {
+                recordStart = position;
+                recordEnd = end;
+                position = end;
+                return true;
+            }
+            refill();
+        }
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean isBlank() {
+        return fieldCount == 1 && fieldStarts[0] == fieldEnds[0];
+    }
+
+    public boolean isEmpty(int field) {
+        return field >= fieldCount || fieldStarts[field] == fieldEnds[field];
+    }
+
+    public boolean fieldEquals(int field, String ascii) {
+        return field < fieldCount && bytesEqual(fieldStarts[field], fieldEnds[field], ascii);
+    }
+
+    // Сравнение без учёта пробелов по краям - так записана строка-разделитель "History "
+    public boolean fieldEqualsTrimmed(int field, String ascii) {
+        if (field >= fieldCount) {
+            return false;
+        }
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (start < end && at(start) == ' ') {
+            start++;
+        }
+        while (end > start && at(end - 1) == ' ') {
+            end--;
+        }
+        return bytesEqual(start, end, ascii);
+    }
+
+    public int intField(int field) {
+        long value = longField(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Число вне диапазона: " + stringField(field));
+        }
+        return (int) value;
+    }
+
+    public long longField(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = start < end && at(start) == '-';
+        if (negative) {
+            start++;
+        }
+        if (start == end || end - start > 18) {
+            return Long.parseLong(stringField(field));
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = at(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Некорректное число: " + stringField(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public TaskType typeField(int field) {
+        for (TaskType type : TASK_TYPES) {
+            if (fieldEquals(field, type.name())) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный тип задачи: " + stringField(field));
+    }
+
+    public TaskStatus statusField(int field) {
+        for (TaskStatus status : TASK_STATUSES) {
+            if (fieldEquals(field, status.name())) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный статус задачи: " + stringField(field));
+    }
+
+    // Разбирает yyyy-MM-ddTHH:mm[:ss[.n]] по позициям, остальные варианты - через LocalDateTime.parse
+    public LocalDateTime dateTimeField(int field) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (length < 16 || fieldEscaped[field] || at(start + 4) != '-' || at(start + 7) != '-'
+                || at(start + 10) != 'T' || at(start + 13) != ':') {
+            return LocalDateTime.parse(stringField(field));
+        }
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        int second = 0;
+        int nano = 0;
+        if (length > 16) {
+            if (length < 19 || at(start + 16) != ':') {
+                return LocalDateTime.parse(stringField(field));
+            }
+            second = digits(start + 17, 2);
+            if (length > 19) {
+                int fractionDigits = length - 20;
+                if (at(start + 19) != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                    return LocalDateTime.parse(stringField(field));
+                }
+                nano = digits(start + 20, fractionDigits);
+                for (int i = fractionDigits; i < 9; i++) {
+                    nano *= 10;
+                }
+            }
+        }
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || nano < 0) {
+            return LocalDateTime.parse(stringField(field));
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+    }
+
+    public String stringField(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (start == end) {
+            return "";
+        }
+        if (scratch.length < end - start) {
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        }
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            byte b = at(i);
+            scratch[length++] = b;
+            if (b == '"' && fieldEscaped[field]) {
+                i++; // удвоенная кавычка внутри поля в кавычках
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public String recordText() {
+        if (scratch.length < recordEnd - recordStart) {
+            scratch = new byte[recordEnd - recordStart];
+        }
+        int length = 0;
+        for (int i = recordStart; i < recordEnd; i++) {
+            scratch[length++] = at(i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8).strip();
+    }
+
+    // Поля задачи начиная с offset: id,type,name,status,description,startTime,duration,epic
+    public Task readTask(int offset) {
+        if (fieldCount - offset < 7) {
+            throw new ManagerSaveException("Некорректный формат строки задачи: " + recordText());
+        }
+        try {
+            int id = intField(offset);
+            TaskType type = typeField(offset + 1);
+            String name = stringField(offset + 2);
+            TaskStatus status = statusField(offset + 3);
+            String description = stringField(offset + 4);
+            LocalDateTime startTime = isEmpty(offset + 5) ? null : dateTimeField(offset + 5);
+            Duration duration = isEmpty(offset + 6) ? null : Duration.ofMinutes(longField(offset + 6));
+            return switch (type) {
+                case TASK -> new Task(id, name, description, duration, startTime, status);
+                case EPIC -> new Epic(id, name, description, status);
+                case SUBTASK -> new Subtask(id, name, description, status, duration, startTime,
+                        intField(offset + 7));
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new ManagerSaveException("Ошибка формата данных для строки: " + recordText(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Возвращает позицию после конца записи или -1, если запись не поместилась в буфер целиком
+    private int parseRecord(int from, boolean last) {
+        int limit = buffer.limit();
+        fieldCount = 0;
+        int i = from;
+        while (true) {
+            if (i < limit && at(i) == '"') {
+                int start = i + 1;
+                boolean escaped = false;
+                i = start;
+                while (true) {
+                    if (i >= limit) {
+                        if (!last) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    if (at(i) == '"') {
+                        if (i + 1 >= limit && !last) {
+                            return -1;
+                        }
+                        if (i + 1 < limit && at(i + 1) == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                addField(start, Math.min(i, limit), escaped);
+                while (i < limit && at(i) != ',' && at(i) != '\n') {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < limit && at(i) != ',' && at(i) != '\n') {
+                    i++;
+                }
+                if (i >= limit && !last) {
+                    return -1;
+                }
+                int end = i;
+                if (end > start && at(end - 1) == '\r') {
+                    end--;
+                }
+                addField(start, end, false);
+            }
+            if (i >= limit) {
+                return last ? limit : -1;
+            }
+            if (at(i) == '\n') {
+                return i + 1;
+            }
+            i++;
+        }
+    }
+
+    private void addField(int start, int end, boolean escaped) {
+        if (fieldCount == fieldStarts.length) {
+            int capacity = fieldCount * 2;
+            fieldStarts = Arrays.copyOf(fieldStarts, capacity);
+            fieldEnds = Arrays.copyOf(fieldEnds, capacity);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, capacity);
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldEscaped[fieldCount] = escaped;
+        fieldCount++;
+    }
+
+    // Переносит незавершённую запись в начало буфера и дочитывает данные из канала
+    private void refill() throws IOException {
+        buffer.position(position);
+        buffer.compact();
+        position = 0;
+        if (!buffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            buffer = larger;
+            array = larger.array();
+        }
+        if (channel.read(buffer) < 0) {
+            endOfInput = true;
+        }
+        buffer.flip();
+    }
+
+    private byte at(int index) {
+        return array != null ? array[index] : buffer.get(index);
+    }
+
+    private boolean bytesEqual(int start, int end, String ascii) {
+        if (end - start != ascii.length()) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (at(start + i) != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = at(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,262 @@
+package managers;
+
+import model.Subtask;
+import model.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+
+// Потоковая запись задач в CSV через канал NIO. Поля с запятыми, кавычками и переводами строк
+// заключаются в кавычки, кавычки внутри удваиваются. Буферы переиспользуются между записями.
+public class CsvTaskWriter implements Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 8;
+    private static final ConcurrentLinkedQueue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+    private final byte[] bytes;
+    private int count;
+    private CRC32 checksum;  // null, пока подсчёт не включён
+    private long written;    // байт, уже переданных в канал
+
+    public CsvTaskWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        ByteBuffer pooled = BUFFER_POOL.poll();
+        this.buffer = pooled != null ? pooled : ByteBuffer.allocate(BUFFER_SIZE);
+        this.bytes = buffer.array();
+    }
+
+    public static String format(Task task) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvTaskWriter writer = new CsvTaskWriter(Channels.newChannel(out))) {
+            writer.writeTaskFields(task);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    public void writeTask(Task task) throws IOException {
+        writeTaskFields(task);
+        endRecord();
+    }
+
+    public void writeTaskFields(Task task) throws IOException {
+        writeInt(task.getId());
+        separator();
+        writeAscii(task.getTaskType().name());
+        separator();
+        writeText(task.getName());
+        separator();
+        writeAscii(task.getStatus().name());
+        separator();
+        writeText(task.getDescription());
+        separator();
+        if (task.getStartTime() != null) {
+            writeDateTime(task.getStartTime());
+        }
+        separator();
+        if (task.getDuration() != null) {
+            writeInt(task.getDuration().toMinutes());
+        }
+        separator();
+        if (task instanceof Subtask subtask) {
+            writeInt(subtask.getEpicId());
+        }
+    }
+
+    // Включает подсчёт CRC32 всего, что будет записано дальше
+    public void trackChecksum() {
+        checksum = new CRC32();
+    }
+
+    public long checksum() throws IOException {
+        flush();
+        return checksum.getValue();
+    }
+
+    public long written() {
+        return written;
+    }
+
+    public void separator() throws IOException {
+        put((byte) ',');
+    }
+
+    public void endRecord() throws IOException {
+        put((byte) '\n');
+    }
+
+    // Только для служебных строк из символов ASCII: заголовков, типов и кодов операций
+    public void writeAscii(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            put((byte) value.charAt(i));
+        }
+    }
+
+    public void writeInt(long value) throws IOException {
+        ensure(20);
+        if (value < 0) {
+            bytes[count++] = (byte) '-';
+            if (value == Long.MIN_VALUE) {
+                writeAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        if (value < 10) {
+            bytes[count++] = (byte) ('0' + value);
+            return;
+        }
+        int digits = 0;
+        for (long rest = value; rest > 0; rest /= 10) {
+            digits++;
+        }
+        int end = count + digits;
+        for (int i = end - 1; i >= count; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+    }
+
+    public void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = needsQuotes(value);
+        if (quote) {
+            put((byte) '"');
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            ensure(4);
+            if (c < 0x80) {
+                if (c == '"') {
+                    bytes[count++] = (byte) '"';
+                }
+                bytes[count++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xC0 | (c >> 6));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                bytes[count++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[count++] = (byte) '?';
+            } else {
+                bytes[count++] = (byte) (0xE0 | (c >> 12));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) {
+            put((byte) '"');
+        }
+    }
+
+    // Тот же вид, что и у DateTimeFormatter.ISO_LOCAL_DATE_TIME
+    public void writeDateTime(LocalDateTime dateTime) throws IOException {
+        int year = dateTime.getYear();
+        if (year < 0 || year > 9999) {
+            writeAscii(dateTime.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            return;
+        }
+        ensure(30);
+        putDigits(year, 4);
+        bytes[count++] = (byte) '-';
+        putDigits(dateTime.getMonthValue(), 2);
+        bytes[count++] = (byte) '-';
+        putDigits(dateTime.getDayOfMonth(), 2);
+        bytes[count++] = (byte) 'T';
+        putDigits(dateTime.getHour(), 2);
+        bytes[count++] = (byte) ':';
+        putDigits(dateTime.getMinute(), 2);
+        bytes[count++] = (byte) ':';
+        putDigits(dateTime.getSecond(), 2);
+        int nano = dateTime.getNano();
+        if (nano != 0) {
+            int digits = 9;
+            while (nano % 10 == 0) {
+                nano /= 10;
+                digits--;
+            }
+            bytes[count++] = (byte) '.';
+            putDigits(nano, digits);
+        }
+    }
+
+    public void flush() throws IOException {
+        if (checksum != null) {
+            checksum.update(bytes, 0, count);
+        }
+        buffer.clear().limit(count);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        written += count;
+        count = 0;
+    }
+
+    // Сбрасывает буфер в канал и возвращает его в пул; сам канал остаётся открытым
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            if (BUFFER_POOL.size() < MAX_POOLED_BUFFERS) {
+                BUFFER_POOL.offer(buffer);
+            }
+            buffer = null;
+        }
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void putDigits(int value, int width) {
+        int end = count + width;
+        for (int i = end - 1; i >= count; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        count = end;
+    }
+
+    private void put(byte value) throws IOException {
+        ensure(1);
+        bytes[count++] = value;
+    }
+
+    private void ensure(int required) throws IOException {
+        if (bytes.length - count < required) {
+            flush();
+        }
+    }
+}
@@ -1,239 +1,749 @@
 package managers;
 
+import app.Managers;
 import exceptions.ManagerSaveException;
 import model.Epic;
+import model.IdAllocator;
 import model.Subtask;
 import model.Task;
-import model.enums.TaskStatus;
 import model.enums.TaskType;
-
-import java.io.*;
+import util.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-
-
-public class FileBackedTaskManager extends InMemoryTaskManager {
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+
+// Менеджер по-прежнему рассчитан на одного вызывающего, но отложенную запись истории делает таймер,
+// поэтому изменяющие методы, просмотры и запись снимка выполняются под блокировкой менеджера
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private static final String CSV_HEADER = "id,type,name,status,description,startTime,duration,epic";
+    private static final String NEXT_ID_RECORD = "NextId";
+    private static final String SEGMENT_RECORD = "JournalSegment";
+    private static final String CHECKSUM_RECORD = "Checksum";
+    // Строка "Checksum,<crc32 в hex>" в конце снимка имеет фиксированную длину
+    private static final int CHECKSUM_FOOTER_LENGTH = CHECKSUM_RECORD.length() + 10;
+    // Один поток-демон на все менеджеры: отложенная запись истории редка и короткая
+    private static final ScheduledThreadPoolExecutor HISTORY_TIMER = historyTimer();
     private final File file;
+    private final PersistenceSettings settings;
+    private final TaskJournal journal;
+    private final GroupCommitWriter groupWriter;  // null при синхронной записи
+    private final GroupCommitWriter compactor;    // фоновое уплотнение синхронного журнала или null
+    private final ManagerMetrics metrics;
+    private final LatencyHistogram saveTimer;
+    private final LatencyHistogram journalTimer;
+    private int journalRecords;                   // записей журнала после последней контрольной точки
+    private long journalBytes;                    // и их размер в байтах
+    private int coveredSegment;                   // последний сегмент журнала, вошедший в загруженный снимок
+    private boolean restoring;
+    private boolean batching;
+    private List<Runnable> pendingBatch;  // записи незавершённой группы журнала при воспроизведении
+    private int pendingBatchSize;
+    private boolean historyDirty;
+    private long lastSaveNanos;
+    private ScheduledFuture<?> historyFlush;  // запланированная запись истории в режиме DEBOUNCED
+
+    // Содержимое контрольной точки: живые хранилища или, при фоновой записи, снимок состояния.
+    // journalSegment - последний закрытый сегмент журнала, уже отражённый в снимке
+    private record SnapshotData(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks,
+                                List<Task> history, int nextId, int journalSegment) {
+    }
 
     public FileBackedTaskManager(File file) {
+        this(file, new PersistenceSettings());
+    }
+
+    public FileBackedTaskManager(File file, PersistenceSettings settings) {
+        this(file, settings, new IdAllocator());
+    }
+
+    public FileBackedTaskManager(File file, PersistenceSettings settings, IdAllocator idAllocator) {
+        this(file, settings, idAllocator, false);
+        if (journal != null) {
+            // Новая доска начинается с пустой контрольной точки, старый журнал больше не применяется.
+            // Доска ещё пуста, поэтому снимок собирается без обращения к хранилищам менеджера
+            checkpoint(new SnapshotData(List.of(), List.of(), List.of(), List.of(),
+                    idAllocator.getHighWaterMark(), journal.lastSegment()), false);
+        }
+    }
+
+    private FileBackedTaskManager(File file, PersistenceSettings settings, IdAllocator idAllocator,
+                                  boolean restoring) {
+        super(historyFor(settings), idAllocator);
+        if (settings.isAsyncWrites() && !settings.isJournalEnabled()) {
+            // Без журнала каждое изменение брало бы снимок всей доски в вызывающем потоке
+            throw new IllegalArgumentException("Фоновая запись требует включённого журнала.");
+        }
         this.file = file;
+        this.settings = settings;
+        this.metrics = settings.getMetrics() != null ? settings.getMetrics() : ManagerMetrics.disabled();
+        this.saveTimer = metrics.histogram("save");
+        this.journalTimer = metrics.histogram("journal");
+        this.journal = settings.isJournalEnabled() ? new TaskJournal(TaskJournal.journalFileFor(file)) : null;
+        this.restoring = restoring;
+        this.lastSaveNanos = System.nanoTime();
+        this.groupWriter = settings.isAsyncWrites()
+                ? new GroupCommitWriter("task-writer-" + file.getName(), this::appendGroup,
+                        settings.getGroupCommitSize(), settings.getGroupCommitDelay(), settings.getWriteErrorHandler())
+                : null;
+        // Фоновый писатель и так делает контрольные точки вне вызывающего потока, отдельное уплотнение
+        // нужно только синхронному журналу. Уплотнитель получает лишь контрольные точки
+        this.compactor = journal != null && settings.isBackgroundCompaction() && groupWriter == null
+                ? new GroupCommitWriter("task-compactor-" + file.getName(), null, 1, Duration.ZERO,
+                        settings.getWriteErrorHandler())
+                : null;
+    }
+
+    private static ScheduledThreadPoolExecutor historyTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "task-history-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    private static HistoryManager historyFor(PersistenceSettings settings) {
+        HistoryManager history = Managers.getDefaultHistory(settings.getHistoryCapacity());
+        return settings.getMetrics() != null ? new InstrumentedHistoryManager(history, settings.getMetrics()) : history;
+    }
+
+    private GroupCommitWriter background() {
+        return groupWriter != null ? groupWriter : compactor;
     }
 
     @Override
-    public Task addTask(Task newTask) {
+    public synchronized Task addTask(Task newTask) {
         Task task = super.addTask(newTask);
-        save();
+        logUpsert(task);
         return task;
     }
 
     @Override
-    public Epic addEpic(Epic newEpic) {
+    public synchronized Epic addEpic(Epic newEpic) {
         Epic epic = super.addEpic(newEpic);
-        save();
+        logUpsert(epic);
         return epic;
     }
 
     @Override
-    public Subtask addSubtask(Subtask newSubtask) {
+    public synchronized Subtask addSubtask(Subtask newSubtask) {
         Subtask subtask = super.addSubtask(newSubtask);
-        save();
+        logUpsert(subtask);
         return subtask;
     }
 
     @Override
-    public Task updateTask(Task updatedTask) {
+    public synchronized Task updateTask(Task updatedTask) {
         Task task = super.updateTask(updatedTask);
-        save();
+        logUpsert(task);
         return task;
     }
 
     @Override
-    public Epic updateEpic(Epic updatedEpic) {
+    public synchronized Epic updateEpic(Epic updatedEpic) {
         Epic epic = super.updateEpic(updatedEpic);
-        save();
+        logUpsert(epic);
         return epic;
     }
 
     @Override
-    public Subtask updateSubtask(Subtask updatedSubtask) {
+    public synchronized Subtask updateSubtask(Subtask updatedSubtask) {
         Subtask subtask = super.updateSubtask(updatedSubtask);
-        save();
+        logUpsert(subtask);
         return subtask;
     }
 
+    // Пересчёт не меняет сохраняемых данных, переопределён ради блокировки
+    @Override
+    public synchronized void updateStatus(Epic epic) {
+        super.updateStatus(epic);
+    }
+
+    // Весь пакет сохраняется одной записью: группой в журнал или одним снимком
+    @Override
+    public synchronized void applyBatch(TaskBatch batch) {
+        List<TaskBatch.Operation> applied;
+        batching = true;
+        try {
+            applied = applyOperations(batch);
+        } finally {
+            batching = false;
+        }
+        if (!applied.isEmpty()) {
+            persist(TaskJournal.batch(applied), applied.size() + 1);
+        }
+    }
+
     @Override
-    public void deleteAllTasks() {
+    public synchronized void deleteAllTasks() {
         super.deleteAllTasks();
-        save();
+        logClear(TaskType.TASK);
     }
 
     @Override
-    public void deleteAllEpics() {
+    public synchronized void deleteAllEpics() {
         super.deleteAllEpics();
-        save();
+        logClear(TaskType.EPIC);
     }
 
     @Override
-    public void deleteAllSubtasks() {
+    public synchronized void deleteAllSubtasks() {
         super.deleteAllSubtasks();
-        save();
+        logClear(TaskType.SUBTASK);
     }
 
     @Override
-    public void deleteTaskById(int id) {
+    public synchronized void deleteTaskById(int id) {
         super.deleteTaskById(id);
-        save();
+        logDelete(TaskType.TASK, id);
     }
 
     @Override
-    public void deleteEpicById(int id) {
+    public synchronized void deleteEpicById(int id) {
         super.deleteEpicById(id);
-        save();
+        logDelete(TaskType.EPIC, id);
     }
 
     @Override
-    public void deleteSubtaskById(int id) {
+    public synchronized void deleteSubtaskById(int id) {
         super.deleteSubtaskById(id);
-        save();
+        logDelete(TaskType.SUBTASK, id);
+    }
+
+    @Override
+    public synchronized ArrayList<Task> getAllTasks() {
+        ArrayList<Task> allTasks = super.getAllTasks();
+        onHistoryChanged();
+        return allTasks;
     }
 
     @Override
-    public Task getTaskById(int id) {
+    public synchronized ArrayList<Epic> getAllEpics() {
+        ArrayList<Epic> allEpics = super.getAllEpics();
+        onHistoryChanged();
+        return allEpics;
+    }
+
+    @Override
+    public synchronized ArrayList<Subtask> getAllSubtasks() {
+        ArrayList<Subtask> allSubtasks = super.getAllSubtasks();
+        onHistoryChanged();
+        return allSubtasks;
+    }
+
+    @Override
+    public synchronized Task getTaskById(int id) {
         Task task = super.getTaskById(id);
-        save();
+        onHistoryChanged();
         return task;
     }
 
     @Override
-    public Epic getEpicById(int id) {
+    public synchronized Epic getEpicById(int id) {
         Epic epic = super.getEpicById(id);
-        save();
+        onHistoryChanged();
         return epic;
     }
 
     @Override
-    public Subtask getSubtaskById(int id) {
+    public synchronized Subtask getSubtaskById(int id) {
         Subtask subtask = super.getSubtaskById(id);
-        save();
+        onHistoryChanged();
         return subtask;
     }
 
-    public void save() {
-        try (Writer writer = new FileWriter(file)) {
-            writer.write("id,type,name,status,description,startTime,duration,epic\n");
-            for (Task task : getAllTasks()) {
-                writer.write(taskToString(task) + "\n");
+    // Фоновый писатель сериализует запись позже, поэтому в журнал уходит копия на момент вызова
+    private void logUpsert(Task task) {
+        persist(TaskJournal.upsert(task.copy()), 1);
+    }
+
+    private void logDelete(TaskType type, int id) {
+        persist(TaskJournal.delete(type, id), 1);
+    }
+
+    private void logClear(TaskType type) {
+        persist(TaskJournal.clear(type), 1);
+    }
+
+    private void persist(TaskJournal.Entry entry, int records) {
+        if (restoring || batching) {
+            return;
+        }
+        checkWriteFailure();
+        if (journal == null) {
+            save();
+            return;
+        }
+        if (groupWriter != null) {
+            byte[] encoded = TaskJournal.encode(entry);
+            groupWriter.submitRecords(encoded);
+            journalBytes += encoded.length;
+        } else {
+            long startNanos = metrics.start();
+            try {
+                journalBytes += journal.append(entry, records);
+            } finally {
+                metrics.stop(journalTimer, startNanos);
+            }
+        }
+        journalRecords += records;
+        if (journalRecords >= settings.getCheckpointInterval() || journalBytes >= settings.getCheckpointBytes()) {
+            save();
+        }
+    }
+
+    // Группа записей фонового писателя: одна запись в файл и один force()
+    private void appendGroup(byte[] encoded) {
+        long startNanos = metrics.start();
+        try {
+            journal.appendEncoded(encoded);
+            journal.force();
+        } finally {
+            metrics.stop(journalTimer, startNanos);
+        }
+    }
+
+    // Сообщает об ошибке фоновой записи. Часть изменений могла не попасть на диск, поэтому сначала
+    // ставится полная контрольная точка текущего состояния
+    private void checkWriteFailure() {
+        if (background() == null) {
+            return;
+        }
+        ManagerSaveException failure = background().takeFailure();
+        if (failure != null) {
+            save();
+            throw failure;
+        }
+    }
+
+    // Записи пакета копятся до конца группы и применяются вместе, без промежуточных проверок пересечений
+    private void replay(CsvTaskReader record) {
+        if (record.fieldEquals(0, "B")) {
+            pendingBatch = new ArrayList<>();
+            pendingBatchSize = record.intField(1);
+            return;
+        }
+        Runnable change = parseRecord(record);
+        if (pendingBatch == null) {
+            change.run();
+            return;
+        }
+        pendingBatch.add(change);
+        if (pendingBatch.size() == pendingBatchSize) {
+            List<Runnable> changes = pendingBatch;
+            pendingBatch = null;
+            applyValidated(() -> changes.forEach(Runnable::run));
+        }
+    }
+
+    // Разбирает запись сразу: читатель переиспользуется для следующей записи
+    private Runnable parseRecord(CsvTaskReader record) {
+        if (record.fieldEquals(0, "U")) {
+            Task task = record.readTask(1);
+            return () -> upsert(task);
+        } else if (record.fieldEquals(0, "D")) {
+            TaskType type = record.typeField(1);
+            int id = record.intField(2);
+            return switch (type) {
+                case TASK -> () -> super.deleteTaskById(id);
+                case EPIC -> () -> super.deleteEpicById(id);
+                case SUBTASK -> () -> super.deleteSubtaskById(id);
+            };
+        } else if (record.fieldEquals(0, "C")) {
+            return switch (record.typeField(1)) {
+                case TASK -> super::deleteAllTasks;
+                case EPIC -> super::deleteAllEpics;
+                case SUBTASK -> super::deleteAllSubtasks;
+            };
+        }
+        throw new ManagerSaveException("Неизвестная запись журнала: " + record.recordText());
+    }
+
+    private void upsert(Task task) {
+        getIdAllocator().advanceTo(task.getId() + 1);
+        Task existing = findTask(task.getId());
+        if (task instanceof Epic) {
+            if (existing instanceof Epic) {
+                // Подзадачи эпика в журнал не пишутся: updateEpic сохраняет состав, известный менеджеру
+                super.updateEpic((Epic) task);
+            } else {
+                super.addEpic((Epic) task);
+            }
+        } else if (task instanceof Subtask) {
+            if (existing != null) {
+                super.updateSubtask((Subtask) task);
+            } else {
+                super.addSubtask((Subtask) task);
+            }
+        } else if (existing != null) {
+            super.updateTask(task);
+        } else {
+            super.addTask(task);
+        }
+    }
+
+    // Просмотры меняют только историю, поэтому записываются согласно HistoryPersistence
+    private void onHistoryChanged() {
+        if (restoring) {
+            return;
+        }
+        historyDirty = true;
+        switch (settings.getHistoryPersistence()) {
+            case IMMEDIATE -> save();
+            case DEBOUNCED -> {
+                long remaining = settings.getHistoryFlushInterval().toNanos() - (System.nanoTime() - lastSaveNanos);
+                if (remaining <= 0) {
+                    save();
+                } else if (historyFlush == null) {
+                    // Без таймера последние просмотры перед простоем или сбоем не попали бы на диск
+                    historyFlush = HISTORY_TIMER.schedule(this::flushHistory, remaining, TimeUnit.NANOSECONDS);
+                }
+            }
+            case ON_CLOSE -> {
+            }
+        }
+    }
+
+    // Срабатывание таймера DEBOUNCED. Если история уже записана вместе с другим изменением или при close(),
+    // делать нечего. Ошибку записи получает writeErrorHandler; без него история остаётся несохранённой,
+    // и ошибка повторится в вызывающем потоке при flush() или close()
+    private synchronized void flushHistory() {
+        historyFlush = null;
+        if (!historyDirty) {
+            return;
+        }
+        try {
+            save();
+        } catch (ManagerSaveException e) {
+            if (settings.getWriteErrorHandler() != null) {
+                settings.getWriteErrorHandler().accept(e);
             }
-            for (Epic epic : getAllEpics()) {
-                writer.write(taskToString(epic) + "\n");
+        }
+    }
+
+    // Записывает отложенные изменения истории. При фоновой записи future завершится, когда на диске
+    // окажутся все изменения, сделанные до вызова, или с ошибкой записи
+    public synchronized CompletableFuture<Void> flush() {
+        if (historyDirty) {
+            save();
+        }
+        return background() != null ? background().flush() : CompletableFuture.completedFuture(null);
+    }
+
+    // Блокирует, пока все сделанные изменения не окажутся на диске
+    public void awaitDurable() {
+        try {
+            flush().join();
+        } catch (CompletionException e) {
+            // Ошибка сообщается здесь, повторно из следующего вызова её выбрасывать не нужно
+            background().takeFailure();
+            save();
+            throw (ManagerSaveException) e.getCause();
+        }
+        checkWriteFailure();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (historyFlush != null) {
+            historyFlush.cancel(false);
+            historyFlush = null;
+        }
+        flush();
+        if (background() != null) {
+            background().close();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+        if (background() != null) {
+            ManagerSaveException failure = background().takeFailure();
+            if (failure != null) {
+                throw failure;
             }
-            for (Subtask subtask : getAllSubtasks()) {
-                writer.write(taskToString(subtask) + "\n");
+        }
+    }
+
+    // При фоновой записи или уплотнении снимок состояния берётся за O(1) и записывается в другом потоке.
+    // Уплотнитель закрывает текущий сегмент журнала и после записи снимка удаляет сегменты, вошедшие в него;
+    // новые записи тем временем идут в следующий сегмент
+    public synchronized void save() {
+        GroupCommitWriter background = background();
+        if (background == null) {
+            saveNow();
+            return;
+        }
+        boolean compacting = background == compactor;
+        int segment = compacting ? journal.roll() : journal.lastSegment();
+        TaskManagerSnapshot view = snapshot();
+        List<Task> history = getHistory();
+        int nextId = getIdAllocator().getHighWaterMark();
+        background.submitCheckpoint(() -> checkpoint(new SnapshotData(view.getAllTasks(), view.getAllEpics(),
+                view.getAllSubtasks(), history, nextId, segment), compacting));
+        saved();
+    }
+
+    // Контрольная точка в вызывающем потоке. Вне save() используется, пока фоновый поток ещё ничего не получил
+    private void saveNow() {
+        checkpoint(currentData(), false);
+        saved();
+    }
+
+    private void saved() {
+        historyDirty = false;
+        if (historyFlush != null) {
+            historyFlush.cancel(false);
+            historyFlush = null;
+        }
+        lastSaveNanos = System.nanoTime();
+        journalRecords = 0;
+        journalBytes = 0;
+    }
+
+    private SnapshotData currentData() {
+        return new SnapshotData(getTaskStore(), getEpicStore(), getSubtaskStore(), getHistory(),
+                getIdAllocator().getHighWaterMark(), journal != null ? journal.lastSegment() : 0);
+    }
+
+    // Уплотнение удаляет только закрытые сегменты: в текущий тем временем пишет вызывающий поток
+    private void checkpoint(SnapshotData data, boolean compacting) {
+        long startNanos = metrics.start();
+        try {
+            writeSnapshot(file, settings.getSnapshotFormat(), data, settings.isAtomicSaves() || compacting);
+            if (compacting) {
+                journal.deleteSegmentsUpTo(data.journalSegment());
+            } else if (journal != null) {
+                journal.reset();
             }
-            writer.write("History \n");
-            writer.write(historyToString(getHistoryManager()));
+        } finally {
+            metrics.stop(saveTimer, startNanos);
+        }
+    }
 
+    private static void writeSnapshot(File target, SnapshotFormat format, SnapshotData data, boolean atomic) {
+        try {
+            if (atomic) {
+                AtomicFiles.replace(target, temp -> writeSnapshotContent(temp, format, data, true));
+            } else {
+                writeSnapshotContent(target, format, data, false);
+            }
         } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка сохранения данных в файл: " + file.getName(), e);
+            throw new ManagerSaveException("Ошибка сохранения данных в файл: " + target.getName(), e);
+        }
+    }
+
+    // Двоичный снимок всегда заканчивается CRC32, CSV - только если запрошена контрольная сумма
+    private static void writeSnapshotContent(File target, SnapshotFormat format, SnapshotData data,
+                                             boolean withChecksum) throws IOException {
+        if (format == SnapshotFormat.BINARY) {
+            BinarySnapshotCodec.write(target, data.tasks(), data.epics(), data.subtasks(), data.history(),
+                    data.nextId(), data.journalSegment());
+        } else {
+            writeCsvSnapshot(target, data, withChecksum);
+        }
+    }
+
+    private static void writeCsvSnapshot(File target, SnapshotData data, boolean withChecksum)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             CsvTaskWriter writer = new CsvTaskWriter(channel)) {
+            if (withChecksum) {
+                writer.trackChecksum();
+            }
+            writer.writeAscii(CSV_HEADER);
+            writer.endRecord();
+            writer.writeAscii(NEXT_ID_RECORD);
+            writer.separator();
+            writer.writeInt(data.nextId());
+            writer.endRecord();
+            if (data.journalSegment() > 0) {
+                writer.writeAscii(SEGMENT_RECORD);
+                writer.separator();
+                writer.writeInt(data.journalSegment());
+                writer.endRecord();
+            }
+            for (Task task : data.tasks()) {
+                writer.writeTask(task);
+            }
+            for (Epic epic : data.epics()) {
+                writer.writeTask(epic);
+            }
+            for (Subtask subtask : data.subtasks()) {
+                writer.writeTask(subtask);
+            }
+            writer.writeAscii("History ");
+            writer.endRecord();
+            for (Task task : data.history()) {
+                writer.writeTask(task);
+            }
+            if (withChecksum) {
+                writer.writeAscii(CHECKSUM_RECORD + "," + String.format("%08x", writer.checksum()));
+                writer.endRecord();
+            }
+        }
+    }
+
+    // Сверяет строку Checksum в конце CSV-снимка с его содержимым. В атомарном режиме она обязательна:
+    // без неё обрезанный снимок не отличить от целого. Вне атомарного режима снимок без неё
+    // принимается как есть
+    private static void verifyCsvChecksum(File source, boolean required) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            long contentSize = channel.size() - CHECKSUM_FOOTER_LENGTH;
+            ByteBuffer footer = ByteBuffer.allocate(CHECKSUM_FOOTER_LENGTH);
+            while (contentSize >= 0 && footer.hasRemaining()) {
+                if (channel.read(footer, contentSize + footer.position()) < 0) {
+                    break;
+                }
+            }
+            String footerText = new String(footer.array(), 0, footer.position(), StandardCharsets.US_ASCII);
+            if (footer.hasRemaining() || !footerText.startsWith(CHECKSUM_RECORD + ",")) {
+                if (required) {
+                    throw new ManagerSaveException("Снимок не содержит контрольной суммы: " + source.getName());
+                }
+                return;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, contentSize));
+            if (!footerText.equals(CHECKSUM_RECORD + "," + String.format("%08x", crc.getValue()) + "\n")) {
+                throw new ManagerSaveException("Контрольная сумма снимка не совпадает: " + source.getName());
+            }
         }
     }
 
     public String taskToString(Task task) {
-        String[] fields = {
-                String.valueOf(task.getId()),
-                task.getTaskType().toString(),
-                task.getName(),
-                task.getStatus().toString(),
-                task.getDescription(),
-                task.getStartTime() != null ? task.getStartTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) : "",
-                task.getDuration() != null ? String.valueOf(task.getDuration().toMinutes()) : "",
-                (task instanceof Subtask) ? String.valueOf(((Subtask) task).getEpicId()) : ""
-        };
-        return String.join(",", fields);
-    }
-
-    private static Task taskFromString(String value) {
-        String[] fields = value.split(",", -1);
-        if (fields.length < 7) {
-            throw new ManagerSaveException("Некорректный формат строки задачи: " + value);
-        }
-        int id = Integer.parseInt(fields[0]);
-        TaskType type = TaskType.valueOf(fields[1]);
-        String name = fields[2];
-        TaskStatus status = TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
-        LocalDateTime startTime = fields[5].isEmpty() ? null : LocalDateTime.parse(fields[5]);
-        Duration duration = fields[6].isEmpty() ? null : Duration.ofMinutes(Long.parseLong(fields[6]));
+        return CsvTaskWriter.format(task);
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file) {
+        return loadFromFile(file, new PersistenceSettings());
+    }
+
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceSettings settings) {
+        return loadFromFile(file, settings, new IdAllocator());
+    }
 
+    // Загруженные id и сохранённый high-water mark сдвигают генератор idAllocator вперёд
+    public static FileBackedTaskManager loadFromFile(File file, PersistenceSettings settings,
+                                                     IdAllocator idAllocator) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, settings, idAllocator, true);
+        File previous = AtomicFiles.previousGeneration(file);
+        File source = file;
+        if (!file.exists() && previous.exists()) {
+            // Сбой между переименованиями при атомарной записи: нового снимка на месте ещё нет
+            source = previous;
+        }
+        if (manager.journal != null && !source.exists()) {
+            // Контрольная точка ещё не записана - вся доска находится в журнале
+            manager.replayJournal();
+            return manager;
+        }
         try {
-            switch (type) {
-                case TASK:
-                    return new Task(id, name, description, duration, startTime, status);
-                case EPIC:
-                    return new Epic(id, name, description, status);
-                case SUBTASK:
-                    int epicId = Integer.parseInt(fields[7]);
-                    return new Subtask(id, name, description, status, duration, startTime, epicId);
-                default:
-                    throw new IllegalArgumentException("Неизвестный тип задачи: " + type);
+            manager.readSnapshot(source);
+        } catch (ManagerSaveException e) {
+            if (source == previous || !previous.exists()) {
+                throw e;
             }
-        } catch (NumberFormatException e) {
-            throw new ManagerSaveException("Ошибка формата данных для строки: " + value, e);
+            manager.close();
+            if (manager.journal != null) {
+                // Журнал уже очищен контрольной точкой, записавшей повреждённый снимок: предыдущее поколение
+                // с ним дало бы доску без изменений между поколениями
+                throw new ManagerSaveException("Снимок " + file.getName() + " повреждён, а журнал после него"
+                        + " уже очищен; предыдущее поколение не содержит последних изменений.", e);
+            }
+            // Снимок без журнала повреждён - берём предыдущее поколение, изменения между поколениями теряются
+            manager = new FileBackedTaskManager(file, settings, idAllocator, true);
+            manager.readSnapshot(previous);
+        }
+        if (manager.journal != null) {
+            manager.replayJournal();
         }
+        manager.restoring = false;
+        return manager;
     }
 
-    private String historyToString(HistoryManager historyManager) {
-        List<Task> history = historyManager.getHistory();
-        List<String> taskStrings = new ArrayList<>();
-        for (Task task : history) {
-            taskStrings.add(taskToString(task));
+    private void readSnapshot(File source) {
+        try {
+            if (BinarySnapshotCodec.isBinary(source)) {
+                BinarySnapshotCodec.Snapshot snapshot = BinarySnapshotCodec.read(source);
+                restoreSnapshot(snapshot.tasks(), snapshot.history());
+                getIdAllocator().advanceTo(snapshot.nextId());
+                coveredSegment = snapshot.journalSegment();
+            } else {
+                verifyCsvChecksum(source, settings.isAtomicSaves());
+                readCsvSnapshot(source, settings.isMemoryMapped());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка загрузки данных из файла: " + source.getName(), e);
+        } catch (IllegalArgumentException e) {
+            throw new ManagerSaveException("Ошибка формата данных в файле: " + source.getName(), e);
         }
-        return String.join("\n", taskStrings);
     }
 
-    public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
-        int maxId = 0; // счетчик для обновления значения idCounter после загрузки задач из файла
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            reader.readLine(); // пропускаем заголовок
-            String line;
+    private void readCsvSnapshot(File source, boolean memoryMapped) throws IOException {
+        List<Task> loaded = new ArrayList<>();
+        List<Task> history = new ArrayList<>();
+        try (CsvTaskReader reader = CsvTaskReader.open(source, memoryMapped)) {
+            reader.next(); // пропускаем заголовок
             // Считываем задачи
-            while ((line = reader.readLine()) != null && !line.trim().equals("History")) {
-                if (!line.trim().isEmpty()) {
-                    Task task = taskFromString(line);
-                    int taskId = task.getId();
-                    if (taskId > maxId) {
-                        maxId = taskId;
-                    }
-                    if (task instanceof Subtask) {
-                        manager.addSubtask((Subtask) task);
-                    } else if (task instanceof Epic) {
-                        manager.addEpic((Epic) task);
-                    } else {
-                        manager.addTask(task);
-                    }
+            while (reader.next() && !reader.fieldEqualsTrimmed(0, "History")) {
+                if (reader.fieldEquals(0, NEXT_ID_RECORD)) {
+                    getIdAllocator().advanceTo(reader.intField(1));
+                } else if (reader.fieldEquals(0, SEGMENT_RECORD)) {
+                    coveredSegment = reader.intField(1);
+                } else if (!reader.isBlank()) {
+                    loaded.add(reader.readTask(0));
                 }
             }
-            Task.setIdCounter(maxId + 1);
             // Считываем историю
-            String historyLine;
-            HistoryManager historyManager = manager.getHistoryManager();
-            while ((historyLine = reader.readLine()) != null && !historyLine.isEmpty()) {
-                if (!historyLine.trim().isEmpty()) {
-                    Task task = taskFromString(historyLine);
-                        historyManager.add(task);
-                        manager.save();
-                }
+            while (reader.next() && !reader.isBlank() && !reader.fieldEquals(0, CHECKSUM_RECORD)) {
+                history.add(reader.readTask(0));
             }
-        } catch (IOException e) {
-            throw new ManagerSaveException("Ошибка загрузки данных из файла: " + file.getName(), e);
-        } catch (NumberFormatException e) {
-            throw new ManagerSaveException("Ошибка формата данных в файле: " + file.getName(), e);
         }
-        return manager;
+        restoreSnapshot(loaded, history);
+    }
+
+    private void restoreSnapshot(List<Task> loaded, List<Task> history) {
+        restore(loaded);
+        getHistoryManager().addAll(history);
+    }
+
+    // Переписывает снимок из файла csvFile в двоичный формат
+    public static void convertToBinary(File csvFile, File binaryFile) {
+        FileBackedTaskManager manager = loadFromFile(csvFile);
+        writeSnapshot(binaryFile, SnapshotFormat.BINARY, manager.currentData(), false);
+    }
+
+    private void replayJournal() {
+        try {
+            journalRecords = journal.replay(this::replay, coveredSegment);
+            journalBytes = journal.length();
+        } catch (IllegalArgumentException e) {
+            throw new ManagerSaveException("Ошибка формата данных в журнале: " + journal.getFile().getName(), e);
+        }
+        restoring = false;
+        if (pendingBatch != null) {
+            // Пакет не дописан до конца - отбрасываем его и фиксируем состояние, чтобы новые записи
+            // не попали в хвост оборванной группы
+            pendingBatch = null;
+            saveNow();
+        }
     }
 
     public static void main(String[] args) {
@@ -252,6 +762,7 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         manager.getTaskById(task1.getId());
         manager.getEpicById(epic1.getId());
         manager.getSubtaskById(subtask1.getId());
+        manager.flush();
 
         manager = FileBackedTaskManager.loadFromFile(file);
         System.out.println(manager.getHistory().size());
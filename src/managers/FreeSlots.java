@@ -0,0 +1,75 @@
+package managers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Поиск свободного времени в расписании. Если интервал [c, c + d) с чем-то пересекается, то с этим же
+// интервалом пересекается и любой кандидат до его окончания, поэтому поиск сразу прыгает на окончание:
+// каждая мешающая задача просматривается один раз, а каждый запрос к расписанию стоит O(log n)
+final class FreeSlots {
+
+    // Окончание любого интервала расписания, пересекающегося с [start, end), или null, если таких нет
+    interface Schedule {
+        LocalDateTime overlapEnd(LocalDateTime start, LocalDateTime end);
+    }
+
+    private FreeSlots() {
+    }
+
+    static LocalDateTime find(Schedule schedule, Duration duration, LocalDateTime notBefore,
+                              LocalDateTime notAfter) {
+        checkWindow(duration, notBefore, notAfter);
+        return find(schedule, new TreeMap<>(), duration, notBefore, notAfter);
+    }
+
+    // Задачи размещаются по порядку: каждая получает самое раннее время, свободное в расписании и от уже
+    // размещённых в этом вызове. Для не поместившейся задачи в ответе null.
+    static List<LocalDateTime> findAll(Schedule schedule, List<Duration> durations, LocalDateTime notBefore,
+                                       LocalDateTime notAfter) {
+        TreeMap<LocalDateTime, LocalDateTime> reserved = new TreeMap<>();
+        List<LocalDateTime> starts = new ArrayList<>(durations.size());
+        for (Duration duration : durations) {
+            checkWindow(duration, notBefore, notAfter);
+            LocalDateTime start = find(schedule, reserved, duration, notBefore, notAfter);
+            if (start != null) {
+                reserved.put(start, start.plus(duration));
+            }
+            starts.add(start);
+        }
+        return starts;
+    }
+
+    private static LocalDateTime find(Schedule schedule, TreeMap<LocalDateTime, LocalDateTime> reserved,
+                                      Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        LocalDateTime candidate = notBefore;
+        while (true) {
+            LocalDateTime end = candidate.plus(duration);
+            if (end.isAfter(notAfter)) {
+                return null;
+            }
+            LocalDateTime blockedUntil = schedule.overlapEnd(candidate, end);
+            if (blockedUntil == null) {
+                // Зарезервированные интервалы не пересекаются, достаточно проверить последний начавшийся до end
+                Map.Entry<LocalDateTime, LocalDateTime> last = reserved.lowerEntry(end);
+                if (last == null || !last.getValue().isAfter(candidate)) {
+                    return candidate;
+                }
+                blockedUntil = last.getValue();
+            }
+            candidate = blockedUntil;
+        }
+    }
+
+    private static void checkWindow(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        if (duration == null || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Длительность должна быть положительной.");
+        }
+        if (notBefore == null || notAfter == null || notAfter.isBefore(notBefore)) {
+            throw new IllegalArgumentException("Некорректные границы поиска свободного времени.");
+        }
+    }
+}
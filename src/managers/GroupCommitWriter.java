@@ -0,0 +1,246 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+// Фоновая запись с групповой фиксацией (group commit). Вызывающий поток только ставит изменения в очередь,
+// а писатель забирает всё накопившееся, когда набралось groupSize записей, прошло delay с первой из них
+// или запрошен flush(), и пишет их одной операцией с последующим force().
+// Из ожидающих контрольных точек выполняется только последняя: она покрывает и предыдущие,
+// и записи журнала, поставленные до неё.
+final class GroupCommitWriter implements AutoCloseable {
+    private final Consumer<byte[]> recordSink;
+    private final int groupSize;
+    private final long delayNanos;
+    private final Consumer<ManagerSaveException> errorHandler;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final Thread thread;
+    // Всё ниже меняется и читается под lock
+    private ByteArrayOutputStream records = new ByteArrayOutputStream();
+    private int pendingRecords;
+    private Runnable checkpoint;
+    private long firstPendingNanos;
+    private long submitted;  // номер последнего поставленного изменения
+    private long durable;    // номер последнего изменения, уже записанного на диск
+    private boolean flushRequested;
+    private boolean closed;
+    private ManagerSaveException failure;
+    // Ошибка группы, чьи изменения не попали на диск и ещё не покрыты успешной контрольной точкой
+    private ManagerSaveException lostChanges;
+
+    private record Waiter(long sequence, CompletableFuture<Void> future) {
+    }
+
+    // recordSink дописывает закодированные записи журнала и делает force(); вызывается только из писателя
+    GroupCommitWriter(String name, Consumer<byte[]> recordSink, int groupSize, Duration delay,
+                      Consumer<ManagerSaveException> errorHandler) {
+        this.recordSink = recordSink;
+        this.groupSize = groupSize;
+        this.delayNanos = delay.toNanos();
+        this.errorHandler = errorHandler;
+        this.thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void submitRecords(byte[] encoded) {
+        lock.lock();
+        try {
+            checkOpen();
+            records.writeBytes(encoded);
+            pendingRecords++;
+            enqueued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Контрольная точка заменяет все ещё не записанные изменения
+    void submitCheckpoint(Runnable newCheckpoint) {
+        lock.lock();
+        try {
+            checkOpen();
+            checkpoint = newCheckpoint;
+            records = new ByteArrayOutputStream();
+            pendingRecords = 0;
+            flushRequested = true;
+            enqueued();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueued() {
+        if (submitted == durable) {
+            firstPendingNanos = System.nanoTime();
+        }
+        submitted++;
+        if (flushRequested || pendingRecords >= groupSize) {
+            changed.signal();
+        }
+    }
+
+    // Завершается, когда на диске окажутся все изменения, поставленные до вызова, или с ошибкой записи,
+    // если часть из них потеряна
+    CompletableFuture<Void> flush() {
+        lock.lock();
+        try {
+            if (submitted == durable) {
+                return lostChanges == null ? CompletableFuture.completedFuture(null)
+                        : CompletableFuture.failedFuture(lostChanges);
+            }
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            waiters.add(new Waiter(submitted, future));
+            flushRequested = true;
+            changed.signal();
+            return future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Возвращает и сбрасывает ошибку фоновой записи, если её не забрал обработчик
+    ManagerSaveException takeFailure() {
+        lock.lock();
+        try {
+            ManagerSaveException result = failure;
+            failure = null;
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Дописывает всё, что осталось в очереди, и останавливает писателя
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new ManagerSaveException("Запись в закрытый журнал невозможна.");
+        }
+    }
+
+    private void run() {
+        while (true) {
+            Runnable groupCheckpoint;
+            byte[] groupRecords;
+            long groupEnd;
+            lock.lock();
+            try {
+                if (!awaitGroup()) {
+                    return;
+                }
+                groupCheckpoint = checkpoint;
+                groupRecords = pendingRecords > 0 ? records.toByteArray() : null;
+                groupEnd = submitted;
+                checkpoint = null;
+                records = new ByteArrayOutputStream();
+                pendingRecords = 0;
+                flushRequested = false;
+            } finally {
+                lock.unlock();
+            }
+            ManagerSaveException error = null;
+            try {
+                if (groupCheckpoint != null) {
+                    groupCheckpoint.run();
+                }
+                if (groupRecords != null) {
+                    recordSink.accept(groupRecords);
+                }
+            } catch (ManagerSaveException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = new ManagerSaveException("Ошибка фоновой записи.", e);
+            }
+            completeGroup(groupEnd, groupCheckpoint != null, error);
+        }
+    }
+
+    // Ждёт, пока группа наберётся; false, если писатель закрыт и очередь пуста
+    private boolean awaitGroup() {
+        while (submitted == durable || !groupReady()) {
+            if (closed) {
+                return submitted != durable;
+            }
+            try {
+                if (submitted == durable) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(firstPendingNanos + delayNanos - System.nanoTime());
+                }
+            } catch (InterruptedException e) {
+                closed = true;
+            }
+        }
+        return true;
+    }
+
+    private boolean groupReady() {
+        return flushRequested || closed || pendingRecords >= groupSize
+                || System.nanoTime() - firstPendingNanos >= delayNanos;
+    }
+
+    // Успешная контрольная точка покрывает и изменения из ранее не записанных групп
+    private void completeGroup(long groupEnd, boolean checkpointed, ManagerSaveException error) {
+        ArrayDeque<Waiter> done = new ArrayDeque<>();
+        ManagerSaveException result;
+        lock.lock();
+        try {
+            durable = groupEnd;
+            if (error != null) {
+                lostChanges = error;
+            } else if (checkpointed) {
+                lostChanges = null;
+            }
+            result = lostChanges;
+            if (submitted != durable) {
+                firstPendingNanos = System.nanoTime();
+            }
+            while (!waiters.isEmpty() && waiters.peek().sequence() <= groupEnd) {
+                done.add(waiters.poll());
+            }
+            if (error != null && errorHandler == null && failure == null) {
+                failure = error;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Waiter waiter : done) {
+            if (result == null) {
+                waiter.future().complete(null);
+            } else {
+                waiter.future().completeExceptionally(result);
+            }
+        }
+        if (error != null && errorHandler != null) {
+            errorHandler.accept(error);
+        }
+    }
+}
@@ -7,7 +7,18 @@ public interface HistoryManager {
 
     void add(Task task);
 
+    // Просмотр нескольких задач подряд, в порядке списка
+    default void addAll(List<? extends Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
     void remove(int id);
 
     List<Task> getHistory();
+
+    default int size() {
+        return getHistory().size();
+    }
 }
@@ -0,0 +1,8 @@
+package managers;
+
+// Когда FileBackedTaskManager записывает изменения, затрагивающие только историю просмотров
+public enum HistoryPersistence {
+    IMMEDIATE,  // сразу после каждого просмотра
+    DEBOUNCED,  // не чаще одного раза за historyFlushInterval
+    ON_CLOSE    // только при flush(), close() или вместе с изменением данных
+}
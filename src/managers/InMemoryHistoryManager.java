@@ -1,7 +1,5 @@
 package managers;
 
-import model.Epic;
-import model.Subtask;
 import model.Task;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -9,40 +7,87 @@ import java.util.List;
 import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
+    public static final int UNBOUNDED = Integer.MAX_VALUE;
 
-    private Node<Task> head;
-    private Node<Task> tail;
-    private final Map<Integer, Node<Task>> nodeMap = new HashMap<>();
+    private final int capacity;
+    private HistoryNode head;
+    private HistoryNode tail;
+    private final Map<Integer, HistoryNode> nodeMap = new HashMap<>();
 
-    private void linkLast(Task task) {
-        Node<Task> newNode = new Node<>(task);
+    // Узел хранит снимок задачи и то, с какого объекта и какой его версии он снят:
+    // повторный просмотр неизменённой задачи только переносит узел в конец списка
+    private static class HistoryNode extends Node<Task> {
+        Task source;
+        int version;
+
+        HistoryNode(Task task) {
+            super(snapshotOf(task));
+            this.source = task;
+            this.version = task.getVersion();
+        }
+
+        boolean isSnapshotOf(Task task) {
+            return source == task && version == task.getVersion();
+        }
+
+        void refresh(Task task) {
+            data = snapshotOf(task);
+            source = task;
+            version = task.getVersion();
+        }
+    }
+
+    public InMemoryHistoryManager() {
+        this(UNBOUNDED);
+    }
+
+    // Хранит не больше capacity различных задач, самый старый просмотр вытесняется за O(1)
+    public InMemoryHistoryManager(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным.");
+        }
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static Task snapshotOf(Task task) {
+        return task.copy();
+    }
+
+    private void linkLast(HistoryNode node) {
+        node.next = null;
+        node.prev = tail;
         if (tail == null) {
-            head = newNode;
-            tail = newNode;
+            head = node;
         } else {
-            tail.next = newNode;
-            newNode.prev = tail;
-            tail = newNode;
+            tail.next = node;
         }
-        nodeMap.put(task.getId(), newNode);
+        tail = node;
     }
 
-    private void removeNode(Node<Task> node) {
+    private void unlink(HistoryNode node) {
         if (node.prev != null) {
             node.prev.next = node.next;
         } else {
-            head = node.next;
+            head = (HistoryNode) node.next;
         }
         if (node.next != null) {
             node.next.prev = node.prev;
         } else {
-            tail = node.prev;
+            tail = (HistoryNode) node.prev;
         }
+    }
+
+    private void removeNode(HistoryNode node) {
+        unlink(node);
         nodeMap.remove(node.data.getId());
     }
 
     public List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>(nodeMap.size());
         Node<Task> current = head;
 
         while (current != null) {
@@ -58,26 +103,39 @@ public class InMemoryHistoryManager implements HistoryManager {
         if (task == null) {
             return;
         }
-        int taskId = task.getId();
-        if (nodeMap.containsKey(taskId)) {
-            removeNode(nodeMap.get(taskId));
+        HistoryNode node = nodeMap.get(task.getId());
+        if (node != null) {
+            if (node != tail) {
+                unlink(node);
+                linkLast(node);
+            }
+            if (!node.isSnapshotOf(task)) {
+                node.refresh(task);
+            }
+            return;
         }
-        // Создаем копию задачи перед добавлением в историю
-        Task taskCopy;
-        if (task instanceof Subtask) {
-            taskCopy = new Subtask((Subtask) task);
-        } else if (task instanceof Epic) {
-            taskCopy = new Epic((Epic) task);
-        } else {
-            taskCopy = new Task(task);
+        node = new HistoryNode(task);
+        linkLast(node);
+        nodeMap.put(task.getId(), node);
+        if (nodeMap.size() > capacity) {
+            removeNode(head);
+        }
+    }
+
+    // Из длинного списка в истории останутся только последние capacity задач, остальные можно не копировать
+    @Override
+    public void addAll(List<? extends Task> tasks) {
+        int from = Math.max(0, tasks.size() - capacity);
+        for (Task task : tasks.subList(from, tasks.size())) {
+            add(task);
         }
-        linkLast(taskCopy);
     }
 
     @Override
     public void remove(int id) {
-        if (nodeMap.containsKey(id)) {
-            removeNode(nodeMap.get(id));
+        HistoryNode node = nodeMap.get(id);
+        if (node != null) {
+            removeNode(node);
         }
     }
 
@@ -85,4 +143,9 @@ public class InMemoryHistoryManager implements HistoryManager {
     public List<Task> getHistory() {
         return getTasks();
     }
+
+    @Override
+    public int size() {
+        return nodeMap.size();
+    }
 }
\ No newline at end of file
@@ -2,97 +2,307 @@ package managers;
 
 import app.Managers;
 import model.Epic;
+import model.IdAllocator;
 import model.Subtask;
 import model.Task;
 import model.enums.TaskStatus;
+import model.enums.TaskType;
+import util.IntHashMap;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class InMemoryTaskManager implements TaskManager {
-    private final Map<Integer, Task> tasks = new LinkedHashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Set<Task> prioritizedTasks = new TreeSet<>(
+    // Задачи всех типов хранятся копиями переданных объектов, а наружу отдаются копии хранимых:
+    // изменение объекта на месте попадает в менеджер только через update*, а снимки состояния,
+    // расписание и индексы его не видят. Задачи и подзадачи при обновлении заменяются целиком;
+    // у эпика на месте меняются только агрегаты по подзадачам, имя и описание заменяются вместе с объектом
+    private final IntHashMap<Task> tasks = new IntHashMap<>();
+    private final IntHashMap<Epic> epics = new IntHashMap<>();
+    private final IntHashMap<Subtask> subtasks = new IntHashMap<>();
+    private final HistoryManager historyManager;
+    private final NavigableSet<Task> prioritizedTasks = new TreeSet<>(
             Comparator.comparing(Task::getStartTime, Comparator.nullsLast(LocalDateTime::compareTo))
                     .thenComparingInt(Task::getId)
     );
+    private final IntervalIndex intervalIndex = new IntervalIndex();
+    private final StatusIndex statusIndex = new StatusIndex();
+    private final TextIndex textIndex = new TextIndex();
+    private final IdAllocator idAllocator;
+    private boolean scheduleValidated;
+
+    public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory(), new IdAllocator());
+    }
+
+    // По умолчанию у каждого менеджера свой генератор id, и доски в одном процессе нумеруют задачи
+    // независимо. Общий генератор передаётся, когда id должны быть уникальны между досками
+    public InMemoryTaskManager(IdAllocator idAllocator) {
+        this(Managers.getDefaultHistory(), idAllocator);
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, new IdAllocator());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, IdAllocator idAllocator) {
+        this.historyManager = historyManager;
+        this.idAllocator = idAllocator;
+    }
+
+    // Срез текущего состояния только для чтения: создаётся за O(1) и не меняется при дальнейшей работе
+    // менеджера, поэтому отчёты и другие долгие чтения можно вести в отдельном потоке без блокировок.
+    // Сам менеджер по-прежнему рассчитан на одного писателя
+    public TaskManagerSnapshot snapshot() {
+        return new TaskManagerSnapshot(tasks.snapshot(), epics.snapshot(), subtasks.snapshot(), idAllocator);
+    }
+
+    @Override
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    @Override
+    public StoreSizes getStoreSizes() {
+        return new StoreSizes(tasks.size(), epics.size(), subtasks.size(), prioritizedTasks.size(),
+                textIndex.termCount(), historyManager.size());
+    }
 
     public HistoryManager getHistoryManager() {
         return historyManager;
     }
 
-    private boolean isTimeOverlapping(Task newTask) {
-        if (newTask.getStartTime() == null || newTask.getDuration() == null) {
-            return false;
+    // Представления хранилищ только для чтения: обход не записывает задачи в историю
+    protected Collection<Task> getTaskStore() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    protected Collection<Epic> getEpicStore() {
+        return Collections.unmodifiableCollection(epics.values());
+    }
+
+    protected Collection<Subtask> getSubtaskStore() {
+        return Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T extends Task> T copyOf(T task) {
+        return (T) task.copy();
+    }
+
+    static <T extends Task> List<T> copies(Collection<? extends T> stored) {
+        List<T> result = new ArrayList<>(stored.size());
+        for (T task : stored) {
+            result.add(copyOf(task));
         }
+        return result;
+    }
 
-        LocalDateTime newStart = newTask.getStartTime();
-        LocalDateTime newEnd = newTask.getEndTime();
+    static <T extends Task> Iterator<T> copies(Iterator<? extends T> stored) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return stored.hasNext();
+            }
 
-        for (Task task : prioritizedTasks) {
-            if (task.equals(newTask) || task.getStartTime() == null || task.getDuration() == null) {
-                continue;
+            @Override
+            public T next() {
+                return copyOf(stored.next());
             }
+        };
+    }
+
+    // Поиск хранимой задачи любого типа без записи в историю просмотров и без копирования
+    protected Task findTask(int id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            task = epics.get(id);
+        }
+        if (task == null) {
+            task = subtasks.get(id);
+        }
+        return task;
+    }
+
+    // Задача с NO_ID получает следующий id генератора этого менеджера; заданный id занимается в нём,
+    // чтобы генератор не выдал его другой задаче
+    private void assignId(Task task) {
+        if (task.getId() == Task.NO_ID) {
+            task.assignId(idAllocator.nextId());
+        } else {
+            idAllocator.claim(task.getId());
+        }
+    }
 
-            LocalDateTime existingStart = task.getStartTime();
-            LocalDateTime existingEnd = task.getEndTime();
+    private boolean isTimeOverlapping(Task newTask) {
+        if (scheduleValidated || newTask.getStartTime() == null || newTask.getDuration() == null) {
+            return false;
+        }
+        return intervalIndex.hasOverlap(newTask.getStartTime(), newTask.getEndTime(), newTask.getId());
+    }
 
-            if (newStart.isBefore(existingEnd) && existingStart.isBefore(newEnd)) {
-                return true;
+    private void addToSchedule(Task task) {
+        if (task.getStartTime() != null && task.getDuration() != null) {
+            prioritizedTasks.add(task);
+            intervalIndex.add(task);
+        }
+    }
+
+    private void removeFromSchedule(Task task) {
+        prioritizedTasks.remove(task);
+        intervalIndex.remove(task.getId());
+    }
+
+    // Быстрое восстановление (например, из файла): задачи кладутся прямо в хранилища,
+    // пересечения проверяются одним проходом по отсортированному списку, подзадачи сразу учитываются в эпиках
+    protected void restore(Collection<? extends Task> loaded) {
+        List<Task> scheduled = new ArrayList<>();
+        List<Subtask> loadedSubtasks = new ArrayList<>();
+        int maxId = 0;
+        for (Task task : loaded) {
+            maxId = Math.max(maxId, task.getId());
+            if (task instanceof Epic epic) {
+                epics.put(epic.getId(), epic);
+                epic.recalculate(List.of());
+            } else if (task instanceof Subtask subtask) {
+                loadedSubtasks.add(subtask);
+            } else {
+                tasks.put(task.getId(), task);
+                scheduled.add(task);
+            }
+        }
+        for (Subtask subtask : loadedSubtasks) {
+            Epic epic = epics.get(subtask.getEpicId());
+            if (epic != null) {
+                subtasks.put(subtask.getId(), subtask);
+                epic.applySubtask(subtask);
+                scheduled.add(subtask);
+            }
+        }
+        scheduled.removeIf(task -> task.getStartTime() == null || task.getDuration() == null);
+
+        scheduled.sort(prioritizedTasks.comparator());
+        boolean checkEach = intervalIndex.size() > 0;
+        intervalIndex.addAllSorted(scheduled);
+        LocalDateTime maxEnd = null;
+        for (Task task : scheduled) {
+            // В отсортированном списке задача может пересекаться только с начавшимися раньше и ещё не закончившимися
+            if (checkEach || (maxEnd != null && task.getStartTime().isBefore(maxEnd))) {
+                if (isTimeOverlapping(task)) {
+                    throw new IllegalArgumentException("Задача " + task.getId()
+                            + " пересекается по времени с существующей.");
+                }
+            }
+            if (maxEnd == null || task.getEndTime().isAfter(maxEnd)) {
+                maxEnd = task.getEndTime();
+            }
+        }
+        prioritizedTasks.addAll(scheduled);
+        for (Task task : loaded) {
+            if (findTask(task.getId()) == task) {
+                statusIndex.add(task);
+                textIndex.add(task);
             }
         }
-        return false;
+        idAllocator.advanceTo(maxId + 1);
     }
 
     @Override
     public ArrayList<Task> getAllTasks() {
-        List<Task> allTasks = new ArrayList<>(tasks.values());
-        for (Task task : allTasks) {
-            historyManager.add(task);
+        ArrayList<Task> allTasks = new ArrayList<>(tasks.size());
+        for (Task task : tasks.values()) {
+            allTasks.add(task);
         }
-        return new ArrayList<>(tasks.values());
+        historyManager.addAll(allTasks);
+        allTasks.replaceAll(Task::copy);
+        return allTasks;
     }
 
     @Override
     public ArrayList<Subtask> getAllSubtasks() {
-        List<Subtask> allSubtasks = new ArrayList<>(subtasks.values());
-        for (Subtask subtask : allSubtasks) {
-            historyManager.add(subtask);
+        ArrayList<Subtask> allSubtasks = new ArrayList<>(subtasks.size());
+        for (Subtask task : subtasks.values()) {
+            allSubtasks.add(task);
         }
-        return new ArrayList<>(subtasks.values());
+        historyManager.addAll(allSubtasks);
+        allSubtasks.replaceAll(Subtask::copy);
+        return allSubtasks;
     }
 
     @Override
     public ArrayList<Epic> getAllEpics() {
-        List<Epic> allEpics = new ArrayList<>(epics.values());
-        for (Epic epic : allEpics) {
-            historyManager.add(epic);
+        ArrayList<Epic> allEpics = new ArrayList<>(epics.size());
+        for (Epic task : epics.values()) {
+            allEpics.add(task);
         }
-        return new ArrayList<>(epics.values());
+        historyManager.addAll(allEpics);
+        allEpics.replaceAll(Epic::copy);
+        return allEpics;
+    }
+
+    @Override
+    public TaskPage<Task> getTasksPage(int afterId, int limit, Predicate<? super Task> filter) {
+        return TaskPage.collect(copies(tasks.valuesAfter(afterId)), afterId, limit, filter);
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(int afterId, int limit, Predicate<? super Subtask> filter) {
+        return TaskPage.collect(copies(subtasks.valuesAfter(afterId)), afterId, limit, filter);
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(int afterId, int limit, Predicate<? super Epic> filter) {
+        return TaskPage.collect(copies(epics.valuesAfter(afterId)), afterId, limit, filter);
+    }
+
+    // Поток читает хранилище напрямую: изменение менеджера во время обхода даёт ConcurrentModificationException
+    @Override
+    public Stream<Task> streamTasks() {
+        return stream(tasks);
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return stream(subtasks);
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return stream(epics);
+    }
+
+    static <T extends Task> Stream<T> stream(IntHashMap<T> store) {
+        return StreamSupport.stream(() -> Spliterators.spliterator(copies(store.valuesAfter(TaskPage.FIRST)),
+                store.size(), Spliterator.ORDERED | Spliterator.NONNULL), Spliterator.ORDERED | Spliterator.NONNULL,
+                false);
     }
 
     @Override
     public void deleteAllTasks() {
         clearCollection(tasks);
+        statusIndex.clear(TaskType.TASK);
     }
 
     @Override
     public void deleteAllEpics() {
         clearCollection(epics);
         clearCollection(subtasks);
+        statusIndex.clear(TaskType.EPIC);
+        statusIndex.clear(TaskType.SUBTASK);
     }
 
     @Override
     public void deleteAllSubtasks() {
         for (Epic epic : epics.values()) {
             epic.deleteAllSubtasksIds();
-            updateStatus(epic);
-            updateEpicTimes(epic);
+            statusIndex.add(epic);
         }
         clearCollection(subtasks);
+        statusIndex.clear(TaskType.SUBTASK);
     }
 
     @Override
@@ -100,8 +310,9 @@ public class InMemoryTaskManager implements TaskManager {
         Task task = tasks.get(id);
         if (task != null) {
             historyManager.add(task);
+            return task.copy();
         }
-        return task;
+        return null;
     }
 
     @Override
@@ -109,8 +320,9 @@ public class InMemoryTaskManager implements TaskManager {
         Epic epic = epics.get(id);
         if (epic != null) {
             historyManager.add(epic);
+            return epic.copy();
         }
-        return epic;
+        return null;
     }
 
     @Override
@@ -118,8 +330,9 @@ public class InMemoryTaskManager implements TaskManager {
         Subtask subtask = subtasks.get(id);
         if (subtask != null) {
             historyManager.add(subtask);
+            return subtask.copy();
         }
-        return subtask;
+        return null;
     }
 
     @Override
@@ -127,16 +340,26 @@ public class InMemoryTaskManager implements TaskManager {
         if (isTimeOverlapping(newTask)) {
             throw new IllegalArgumentException("Задача пересекается по времени с существующей.");
         }
-        tasks.put(newTask.getId(), newTask);
-        if (newTask.getStartTime() != null && newTask.getDuration() != null) {
-            prioritizedTasks.add(newTask);
-        }
+        assignId(newTask);
+        Task task = newTask.copy();
+        tasks.put(task.getId(), task);
+        addToSchedule(task);
+        statusIndex.add(task);
+        textIndex.add(task);
         return newTask;
     }
 
     @Override
     public Epic addEpic(Epic newEpic) {
-        epics.put(newEpic.getId(), newEpic);
+        assignId(newEpic);
+        // Подзадачи попадают в эпик только через addSubtask, поэтому копия начинается без них
+        Epic epic = newEpic.copy();
+        if (!epic.getSubtaskIdSet().isEmpty()) {
+            epic.recalculate(List.of());
+        }
+        epics.put(epic.getId(), epic);
+        statusIndex.add(epic);
+        textIndex.add(epic);
         return newEpic;
     }
 
@@ -146,14 +369,15 @@ public class InMemoryTaskManager implements TaskManager {
             if (isTimeOverlapping(newSubtask)) {
                 throw new IllegalArgumentException("Подзадача пересекается по времени с существующей.");
             }
-            subtasks.put(newSubtask.getId(), newSubtask);
-            if (newSubtask.getStartTime() != null && newSubtask.getDuration() != null) {
-                prioritizedTasks.add(newSubtask);
-            }
-            Epic epic = epics.get(newSubtask.getEpicId());
-            epic.addSubtaskIds(newSubtask);
-            updateStatus(epic);
-            updateEpicTimes(epic);
+            assignId(newSubtask);
+            Subtask subtask = newSubtask.copy();
+            subtasks.put(subtask.getId(), subtask);
+            addToSchedule(subtask);
+            Epic epic = epics.get(subtask.getEpicId());
+            epic.applySubtask(subtask);
+            statusIndex.add(subtask);
+            statusIndex.add(epic);
+            textIndex.add(subtask);
         }
         return newSubtask;
     }
@@ -161,91 +385,74 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public Task updateTask(Task updatedTask) {
         if (tasks.containsKey(updatedTask.getId())) {
-            prioritizedTasks.remove(tasks.get(updatedTask.getId()));
             if (isTimeOverlapping(updatedTask)) {
                 throw new IllegalArgumentException("Задача пересекается по времени с существующей.");
             }
-            tasks.put(updatedTask.getId(), updatedTask);
-            if (updatedTask.getStartTime() != null && updatedTask.getDuration() != null) {
-                prioritizedTasks.add(updatedTask);
-            }
+            Task task = updatedTask.copy();
+            removeFromSchedule(tasks.put(task.getId(), task));
+            addToSchedule(task);
+            statusIndex.add(task);
+            textIndex.add(task);
         }
         return updatedTask;
     }
 
     @Override
     public Epic updateEpic(Epic updatedEpic) {
-        if (epics.containsKey(updatedEpic.getId())) {
-            epics.put(updatedEpic.getId(), updatedEpic);
-            updateEpicTimes(updatedEpic);
-            updateStatus(updatedEpic);
+        Epic stored = epics.get(updatedEpic.getId());
+        if (stored != null) {
+            // Из переданного эпика берутся имя и описание; состав подзадач и агрегаты ведёт менеджер
+            Epic epic = updatedEpic.copy();
+            epic.recalculate(subtasksOf(stored));
+            epics.put(epic.getId(), epic);
+            statusIndex.add(epic);
+            textIndex.add(epic);
         }
         return updatedEpic;
     }
 
     @Override
     public Subtask updateSubtask(Subtask updatedSubtask) {
-        if (subtasks.containsKey(updatedSubtask.getId())) {
-            prioritizedTasks.remove(subtasks.get(updatedSubtask.getId()));
+        Subtask stored = subtasks.get(updatedSubtask.getId());
+        // Подзадача может перейти в другой эпик; обновление с несуществующим эпиком игнорируется
+        Epic epic = stored != null ? epics.get(updatedSubtask.getEpicId()) : null;
+        if (epic != null) {
             if (isTimeOverlapping(updatedSubtask)) {
                 throw new IllegalArgumentException("Подзадача пересекается по времени с существующей.");
             }
-            subtasks.put(updatedSubtask.getId(), updatedSubtask);
-            if (updatedSubtask.getStartTime() != null && updatedSubtask.getDuration() != null) {
-                prioritizedTasks.add(updatedSubtask);
+            Subtask subtask = updatedSubtask.copy();
+            removeFromSchedule(subtasks.put(subtask.getId(), subtask));
+            addToSchedule(subtask);
+            if (stored.getEpicId() != subtask.getEpicId()) {
+                Epic oldEpic = epics.get(stored.getEpicId());
+                if (oldEpic != null) {
+                    oldEpic.removeSubtaskId(subtask.getId());
+                    statusIndex.add(oldEpic);
+                }
             }
-            Epic epic = epics.get(updatedSubtask.getEpicId());
-            updateStatus(epic);
-            updateEpicTimes(epic);
+            epic.applySubtask(subtask);
+            statusIndex.add(subtask);
+            statusIndex.add(epic);
+            textIndex.add(subtask);
         }
         return updatedSubtask;
     }
 
+    // Полный пересчёт статуса и времени эпика; обычные изменения подзадач учитываются в эпике инкрементально
     @Override
     public void updateStatus(Epic epic) {
         epic = epics.get(epic.getId());
-        List<Subtask> epicSubtasks = epic.getSubtasksIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        if (epicSubtasks.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
-        }
-
-        boolean allNew = epicSubtasks.stream()
-                .allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW);
-
-        if (allNew) {
-            epic.setStatus(TaskStatus.NEW);
-            return;
-        }
-
-        boolean allDone = epicSubtasks.stream()
-                .allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE);
-        if (allDone) {
-            epic.setStatus(TaskStatus.DONE);
-            return;
-        }
-
-        epic.setStatus(TaskStatus.IN_PROGRESS);
-    }
-
-    private void updateEpicTimes(Epic epic) {
-        List<Subtask> epicSubtasks = epic.getSubtasksIds().stream()
-                .map(subtasks::get)
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
-
-        epic.updateTimes(epicSubtasks);
+        epic.recalculate(subtasksOf(epic));
+        statusIndex.add(epic);
     }
 
     @Override
     public void deleteTaskById(int id) {
         Task task = tasks.remove(id);
         if (task != null) {
-            prioritizedTasks.remove(task);
+            removeFromSchedule(task);
+            statusIndex.remove(task);
+            textIndex.remove(id);
             historyManager.remove(id);
         }
     }
@@ -254,14 +461,19 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteEpicById(int id) {
         Epic epic = epics.remove(id);
         if (epic != null) {
-            for (Integer subtaskId : epic.getSubtasksIds()) {
+            for (PrimitiveIterator.OfInt it = epic.getSubtaskIdSet().iterator(); it.hasNext(); ) {
+                int subtaskId = it.nextInt();
                 Subtask subtask = subtasks.remove(subtaskId);
                 if (subtask != null) {
-                    prioritizedTasks.remove(subtask);
+                    removeFromSchedule(subtask);
+                    statusIndex.remove(subtask);
+                    textIndex.remove(subtaskId);
                     historyManager.remove(subtaskId);
                 }
             }
             epic.deleteAllSubtasksIds();
+            statusIndex.remove(epic);
+            textIndex.remove(id);
             historyManager.remove(epic.getId());
         }
     }
@@ -270,27 +482,192 @@ public class InMemoryTaskManager implements TaskManager {
     public void deleteSubtaskById(int id) {
         Subtask subtask = subtasks.remove(id);
         if (subtask != null) {
-            prioritizedTasks.remove(subtask);
+            removeFromSchedule(subtask);
+            statusIndex.remove(subtask);
+            textIndex.remove(id);
             historyManager.remove(id);
 
             Epic epic = epics.get(subtask.getEpicId());
             if (epic != null) {
-                epic.getSubtasksIds().remove(Integer.valueOf(id));
-                updateStatus(epic);
-                updateEpicTimes(epic);
+                epic.removeSubtaskId(id);
+                statusIndex.add(epic);
             }
         }
     }
 
     @Override
     public ArrayList<Integer> getSubtasksIdsOfEpic(Epic epic) {
-        return epics.containsKey(epic.getId()) ? new ArrayList<>(epic.getSubtasksIds())
-                : new ArrayList<>();
+        Epic stored = epics.get(epic.getId());
+        return stored != null ? stored.getSubtasksIds() : new ArrayList<>();
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        return copies(statusIndex.get(status));
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        return copies(statusIndex.get(type, status));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(int epicId) {
+        Epic epic = epics.get(epicId);
+        return epic == null ? new ArrayList<>() : copies(subtasksOf(epic));
+    }
+
+    private List<Subtask> subtasksOf(Epic epic) {
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskIdSet().size());
+        for (PrimitiveIterator.OfInt it = epic.getSubtaskIdSet().iterator(); it.hasNext(); ) {
+            Subtask subtask = subtasks.get(it.nextInt());
+            if (subtask != null) {
+                result.add(subtask);
+            }
+        }
+        return result;
+    }
+
+    // Пересечения проверяются один раз для итогового расписания, поэтому порядок операций в пакете
+    // не важен: например, две задачи могут поменяться временем
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        applyOperations(batch);
+    }
+
+    // Возвращает операции, которые действительно изменили менеджер
+    protected List<TaskBatch.Operation> applyOperations(TaskBatch batch) {
+        batch.assignIds(idAllocator);
+        batch.validate(this::findTask, intervalIndex::hasOverlap);
+        List<TaskBatch.Operation> applied = new ArrayList<>(batch.size());
+        applyValidated(() -> {
+            for (TaskBatch.Operation operation : batch.getOperations()) {
+                if (applyOperation(operation)) {
+                    applied.add(operation);
+                }
+            }
+        });
+        return applied;
+    }
+
+    // Выполняет изменения без проверки пересечений: расписание уже проверено целиком
+    protected void applyValidated(Runnable changes) {
+        scheduleValidated = true;
+        try {
+            changes.run();
+        } finally {
+            scheduleValidated = false;
+        }
+    }
+
+    private boolean applyOperation(TaskBatch.Operation operation) {
+        Task task = operation.task();
+        int id = operation.id();
+        if (operation.kind() == TaskBatch.Kind.ADD) {
+            if (task instanceof Subtask subtask && !epics.containsKey(subtask.getEpicId())) {
+                return false;
+            }
+        } else if (!contains(operation.type(), id)) {
+            return false;
+        }
+        switch (operation.kind()) {
+            case ADD -> {
+                switch (operation.type()) {
+                    case TASK -> addTask(task);
+                    case EPIC -> addEpic((Epic) task);
+                    case SUBTASK -> addSubtask((Subtask) task);
+                }
+            }
+            case UPDATE -> {
+                switch (operation.type()) {
+                    case TASK -> updateTask(task);
+                    case EPIC -> updateEpic((Epic) task);
+                    case SUBTASK -> updateSubtask((Subtask) task);
+                }
+            }
+            case DELETE -> {
+                switch (operation.type()) {
+                    case TASK -> deleteTaskById(id);
+                    case EPIC -> deleteEpicById(id);
+                    case SUBTASK -> deleteSubtaskById(id);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(TaskType type, int id) {
+        return switch (type) {
+            case TASK -> tasks.containsKey(id);
+            case EPIC -> epics.containsKey(id);
+            case SUBTASK -> subtasks.containsKey(id);
+        };
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        return FreeSlots.find(intervalIndex::overlapEnd, duration, notBefore, notAfter);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(List<Duration> durations, LocalDateTime notBefore,
+                                             LocalDateTime notAfter) {
+        return FreeSlots.findAll(intervalIndex::overlapEnd, durations, notBefore, notAfter);
+    }
+
+    // Полнотекстовый поиск по названию и описанию, результаты по возрастанию id
+    @Override
+    public List<Task> search(String query, int limit) {
+        TaskPage.checkLimit(limit);
+        List<Integer> ids = textIndex.search(query, limit);
+        List<Task> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            result.add(findTask(id).copy());
+        }
+        return result;
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritizedTasks);
+        return copies(prioritizedTasks);
+    }
+
+    // Задачи, начинающиеся в [from, to), по порядку расписания
+    @Override
+    public List<Task> getPrioritizedBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал времени.");
+        }
+        return copies(prioritizedTasks.subSet(probe(from), true, probe(to), false));
+    }
+
+    // Первые n задач, начинающихся не раньше after
+    @Override
+    public List<Task> getNextN(LocalDateTime after, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Количество задач не может быть отрицательным.");
+        }
+        List<Task> result = new ArrayList<>(Math.min(n, prioritizedTasks.size()));
+        for (Task task : prioritizedTasks.tailSet(probe(after), true)) {
+            if (result.size() == n) {
+                break;
+            }
+            result.add(task.copy());
+        }
+        return result;
+    }
+
+    // Ключ для поиска в расписании: меньше любой задачи с тем же временем начала
+    private static Task probe(LocalDateTime startTime) {
+        if (startTime == null) {
+            throw new IllegalArgumentException("Время не может быть null.");
+        }
+        return new Task(Integer.MIN_VALUE, "", "", Duration.ZERO, startTime, TaskStatus.NEW);
+    }
+
+    @Override
+    public List<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        return copies(intervalIndex.findOverlapping(start, end));
     }
 
     @Override
@@ -298,10 +675,11 @@ public class InMemoryTaskManager implements TaskManager {
         return historyManager.getHistory();
     }
 
-    private <T extends Task> void clearCollection(Map<Integer, T> collection) {
+    private <T extends Task> void clearCollection(IntHashMap<T> collection) {
         for (T task : collection.values()) {
             historyManager.remove(task.getId());
-            prioritizedTasks.remove(task);
+            removeFromSchedule(task);
+            textIndex.remove(task.getId());
         }
         collection.clear();
     }
@@ -0,0 +1,70 @@
+package managers;
+
+import model.Task;
+import util.LatencyHistogram;
+
+import java.util.List;
+
+// Декоратор истории с замером задержек; операции попадают в ManagerMetrics с префиксом "history."
+public class InstrumentedHistoryManager implements HistoryManager {
+    private final HistoryManager delegate;
+    private final ManagerMetrics metrics;
+    private final LatencyHistogram addTimer;
+    private final LatencyHistogram addAllTimer;
+    private final LatencyHistogram removeTimer;
+    private final LatencyHistogram getHistoryTimer;
+
+    public InstrumentedHistoryManager(HistoryManager delegate, ManagerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        addTimer = metrics.histogram("history.add");
+        addAllTimer = metrics.histogram("history.addAll");
+        removeTimer = metrics.histogram("history.remove");
+        getHistoryTimer = metrics.histogram("history.getHistory");
+    }
+
+    @Override
+    public void add(Task task) {
+        long startNanos = metrics.start();
+        try {
+            delegate.add(task);
+        } finally {
+            metrics.stop(addTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void addAll(List<? extends Task> tasks) {
+        long startNanos = metrics.start();
+        try {
+            delegate.addAll(tasks);
+        } finally {
+            metrics.stop(addAllTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void remove(int id) {
+        long startNanos = metrics.start();
+        try {
+            delegate.remove(id);
+        } finally {
+            metrics.stop(removeTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getHistory();
+        } finally {
+            metrics.stop(getHistoryTimer, startNanos);
+        }
+    }
+
+    @Override
+    public int size() {
+        return delegate.size();
+    }
+}
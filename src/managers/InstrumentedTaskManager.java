@@ -0,0 +1,485 @@
+package managers;
+
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+import util.LatencyHistogram;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Декоратор, который считает вызовы и задержки каждого метода менеджера в гистограммах ManagerMetrics.
+// Гистограммы заводятся один раз в конструкторе, так что замер - два вызова System.nanoTime() и запись
+// в гистограмму; при выключенных метриках остаётся только чтение флага. Ленивые потоки не замеряются:
+// время их создания ничего не говорит о времени обхода
+public class InstrumentedTaskManager implements TaskManager {
+    private final TaskManager delegate;
+    private final ManagerMetrics metrics;
+    private final LatencyHistogram getAllTasksTimer;
+    private final LatencyHistogram getAllSubtasksTimer;
+    private final LatencyHistogram getAllEpicsTimer;
+    private final LatencyHistogram getTasksPageTimer;
+    private final LatencyHistogram getSubtasksPageTimer;
+    private final LatencyHistogram getEpicsPageTimer;
+    private final LatencyHistogram deleteAllTasksTimer;
+    private final LatencyHistogram deleteAllEpicsTimer;
+    private final LatencyHistogram deleteAllSubtasksTimer;
+    private final LatencyHistogram getTaskByIdTimer;
+    private final LatencyHistogram getEpicByIdTimer;
+    private final LatencyHistogram getSubtaskByIdTimer;
+    private final LatencyHistogram addTaskTimer;
+    private final LatencyHistogram addEpicTimer;
+    private final LatencyHistogram addSubtaskTimer;
+    private final LatencyHistogram updateTaskTimer;
+    private final LatencyHistogram updateEpicTimer;
+    private final LatencyHistogram updateSubtaskTimer;
+    private final LatencyHistogram updateStatusTimer;
+    private final LatencyHistogram deleteTaskByIdTimer;
+    private final LatencyHistogram deleteEpicByIdTimer;
+    private final LatencyHistogram deleteSubtaskByIdTimer;
+    private final LatencyHistogram getSubtasksIdsOfEpicTimer;
+    private final LatencyHistogram getHistoryTimer;
+    private final LatencyHistogram getByStatusTimer;
+    private final LatencyHistogram getByTypeAndStatusTimer;
+    private final LatencyHistogram getSubtasksOfEpicTimer;
+    private final LatencyHistogram searchTimer;
+    private final LatencyHistogram getPrioritizedTasksTimer;
+    private final LatencyHistogram applyBatchTimer;
+    private final LatencyHistogram getPrioritizedBetweenTimer;
+    private final LatencyHistogram getNextNTimer;
+    private final LatencyHistogram findOverlappingTimer;
+    private final LatencyHistogram findFreeSlotTimer;
+    private final LatencyHistogram findFreeSlotsTimer;
+
+    public InstrumentedTaskManager(TaskManager delegate, ManagerMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        metrics.setSizeSource(delegate::getStoreSizes);
+        getAllTasksTimer = metrics.histogram("getAllTasks");
+        getAllSubtasksTimer = metrics.histogram("getAllSubtasks");
+        getAllEpicsTimer = metrics.histogram("getAllEpics");
+        getTasksPageTimer = metrics.histogram("getTasksPage");
+        getSubtasksPageTimer = metrics.histogram("getSubtasksPage");
+        getEpicsPageTimer = metrics.histogram("getEpicsPage");
+        deleteAllTasksTimer = metrics.histogram("deleteAllTasks");
+        deleteAllEpicsTimer = metrics.histogram("deleteAllEpics");
+        deleteAllSubtasksTimer = metrics.histogram("deleteAllSubtasks");
+        getTaskByIdTimer = metrics.histogram("getTaskById");
+        getEpicByIdTimer = metrics.histogram("getEpicById");
+        getSubtaskByIdTimer = metrics.histogram("getSubtaskById");
+        addTaskTimer = metrics.histogram("addTask");
+        addEpicTimer = metrics.histogram("addEpic");
+        addSubtaskTimer = metrics.histogram("addSubtask");
+        updateTaskTimer = metrics.histogram("updateTask");
+        updateEpicTimer = metrics.histogram("updateEpic");
+        updateSubtaskTimer = metrics.histogram("updateSubtask");
+        updateStatusTimer = metrics.histogram("updateStatus");
+        deleteTaskByIdTimer = metrics.histogram("deleteTaskById");
+        deleteEpicByIdTimer = metrics.histogram("deleteEpicById");
+        deleteSubtaskByIdTimer = metrics.histogram("deleteSubtaskById");
+        getSubtasksIdsOfEpicTimer = metrics.histogram("getSubtasksIdsOfEpic");
+        getHistoryTimer = metrics.histogram("getHistory");
+        getByStatusTimer = metrics.histogram("getByStatus");
+        getByTypeAndStatusTimer = metrics.histogram("getByTypeAndStatus");
+        getSubtasksOfEpicTimer = metrics.histogram("getSubtasksOfEpic");
+        searchTimer = metrics.histogram("search");
+        getPrioritizedTasksTimer = metrics.histogram("getPrioritizedTasks");
+        applyBatchTimer = metrics.histogram("applyBatch");
+        getPrioritizedBetweenTimer = metrics.histogram("getPrioritizedBetween");
+        getNextNTimer = metrics.histogram("getNextN");
+        findOverlappingTimer = metrics.histogram("findOverlapping");
+        findFreeSlotTimer = metrics.histogram("findFreeSlot");
+        findFreeSlotsTimer = metrics.histogram("findFreeSlots");
+    }
+
+    public TaskManager getDelegate() {
+        return delegate;
+    }
+
+    public ManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getAllTasks();
+        } finally {
+            metrics.stop(getAllTasksTimer, startNanos);
+        }
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getAllSubtasks();
+        } finally {
+            metrics.stop(getAllSubtasksTimer, startNanos);
+        }
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getAllEpics();
+        } finally {
+            metrics.stop(getAllEpicsTimer, startNanos);
+        }
+    }
+
+    @Override
+    public TaskPage<Task> getTasksPage(int afterId, int limit, Predicate<? super Task> filter) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getTasksPage(afterId, limit, filter);
+        } finally {
+            metrics.stop(getTasksPageTimer, startNanos);
+        }
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(int afterId, int limit, Predicate<? super Subtask> filter) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getSubtasksPage(afterId, limit, filter);
+        } finally {
+            metrics.stop(getSubtasksPageTimer, startNanos);
+        }
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(int afterId, int limit, Predicate<? super Epic> filter) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getEpicsPage(afterId, limit, filter);
+        } finally {
+            metrics.stop(getEpicsPageTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return delegate.streamTasks();
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return delegate.streamSubtasks();
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return delegate.streamEpics();
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        long startNanos = metrics.start();
+        try {
+            delegate.deleteAllTasks();
+        } finally {
+            metrics.stop(deleteAllTasksTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        long startNanos = metrics.start();
+        try {
+            delegate.deleteAllEpics();
+        } finally {
+            metrics.stop(deleteAllEpicsTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        long startNanos = metrics.start();
+        try {
+            delegate.deleteAllSubtasks();
+        } finally {
+            metrics.stop(deleteAllSubtasksTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getTaskById(id);
+        } finally {
+            metrics.stop(getTaskByIdTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getEpicById(id);
+        } finally {
+            metrics.stop(getEpicByIdTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getSubtaskById(id);
+        } finally {
+            metrics.stop(getSubtaskByIdTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Task addTask(Task newTask) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.addTask(newTask);
+        } finally {
+            metrics.stop(addTaskTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Epic addEpic(Epic newEpic) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.addEpic(newEpic);
+        } finally {
+            metrics.stop(addEpicTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask newSubtask) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.addSubtask(newSubtask);
+        } finally {
+            metrics.stop(addSubtaskTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Task updateTask(Task updatedTask) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.updateTask(updatedTask);
+        } finally {
+            metrics.stop(updateTaskTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Epic updateEpic(Epic updatedEpic) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.updateEpic(updatedEpic);
+        } finally {
+            metrics.stop(updateEpicTimer, startNanos);
+        }
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask updatedSubtask) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.updateSubtask(updatedSubtask);
+        } finally {
+            metrics.stop(updateSubtaskTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void updateStatus(Epic epic) {
+        long startNanos = metrics.start();
+        try {
+            delegate.updateStatus(epic);
+        } finally {
+            metrics.stop(updateStatusTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        long startNanos = metrics.start();
+        try {
+            delegate.deleteTaskById(id);
+        } finally {
+            metrics.stop(deleteTaskByIdTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        long startNanos = metrics.start();
+        try {
+            delegate.deleteEpicById(id);
+        } finally {
+            metrics.stop(deleteEpicByIdTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        long startNanos = metrics.start();
+        try {
+            delegate.deleteSubtaskById(id);
+        } finally {
+            metrics.stop(deleteSubtaskByIdTimer, startNanos);
+        }
+    }
+
+    @Override
+    public ArrayList<Integer> getSubtasksIdsOfEpic(Epic epic) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getSubtasksIdsOfEpic(epic);
+        } finally {
+            metrics.stop(getSubtasksIdsOfEpicTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getHistory();
+        } finally {
+            metrics.stop(getHistoryTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getByStatus(status);
+        } finally {
+            metrics.stop(getByStatusTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getByTypeAndStatus(type, status);
+        } finally {
+            metrics.stop(getByTypeAndStatusTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(int epicId) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getSubtasksOfEpic(epicId);
+        } finally {
+            metrics.stop(getSubtasksOfEpicTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.search(query, limit);
+        } finally {
+            metrics.stop(searchTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getPrioritizedTasks();
+        } finally {
+            metrics.stop(getPrioritizedTasksTimer, startNanos);
+        }
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        long startNanos = metrics.start();
+        try {
+            delegate.applyBatch(batch);
+        } finally {
+            metrics.stop(applyBatchTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getPrioritizedBetween(LocalDateTime from, LocalDateTime to) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getPrioritizedBetween(from, to);
+        } finally {
+            metrics.stop(getPrioritizedBetweenTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> getNextN(LocalDateTime after, int n) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.getNextN(after, n);
+        } finally {
+            metrics.stop(getNextNTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.findOverlapping(start, end);
+        } finally {
+            metrics.stop(findOverlappingTimer, startNanos);
+        }
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.findFreeSlot(duration, notBefore, notAfter);
+        } finally {
+            metrics.stop(findFreeSlotTimer, startNanos);
+        }
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(List<Duration> durations, LocalDateTime notBefore,
+                                             LocalDateTime notAfter) {
+        long startNanos = metrics.start();
+        try {
+            return delegate.findFreeSlots(durations, notBefore, notAfter);
+        } finally {
+            metrics.stop(findFreeSlotsTimer, startNanos);
+        }
+    }
+
+    @Override
+    public IdAllocator getIdAllocator() {
+        return delegate.getIdAllocator();
+    }
+
+    @Override
+    public StoreSizes getStoreSizes() {
+        return delegate.getStoreSizes();
+    }
+}
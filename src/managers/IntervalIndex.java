@@ -0,0 +1,257 @@
+package managers;
+
+import model.Task;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+// Дополненное AVL-дерево интервалов: ключ - (startTime, id), в каждом узле хранится
+// максимальное время окончания в поддереве. Поиск пересечений - O(log n + k).
+public class IntervalIndex {
+
+    private static class IntervalNode {
+        final int id;
+        final LocalDateTime start;
+        final LocalDateTime end;
+        final Task task;
+        LocalDateTime maxEnd;
+        int height = 1;
+        IntervalNode left;
+        IntervalNode right;
+
+        IntervalNode(Task task) {
+            this.id = task.getId();
+            this.start = task.getStartTime();
+            this.end = task.getEndTime();
+            this.task = task;
+            this.maxEnd = end;
+        }
+    }
+
+    private IntervalNode root;
+    // Запоминаем узел по id: задача могла быть изменена снаружи, а удалять нужно по исходному ключу
+    private final Map<Integer, IntervalNode> nodesById = new HashMap<>();
+
+    public int size() {
+        return nodesById.size();
+    }
+
+    public void add(Task task) {
+        if (task.getStartTime() == null || task.getDuration() == null) {
+            return;
+        }
+        remove(task.getId());
+        IntervalNode node = new IntervalNode(task);
+        root = insert(root, node);
+        nodesById.put(node.id, node);
+    }
+
+    // Добавляет задачи, отсортированные по (startTime, id); пустое дерево строится сразу сбалансированным за O(n)
+    public void addAllSorted(List<? extends Task> sorted) {
+        if (root != null) {
+            for (Task task : sorted) {
+                add(task);
+            }
+            return;
+        }
+        List<IntervalNode> nodes = new ArrayList<>(sorted.size());
+        for (Task task : sorted) {
+            if (task.getStartTime() != null && task.getDuration() != null && !nodesById.containsKey(task.getId())) {
+                IntervalNode node = new IntervalNode(task);
+                nodes.add(node);
+                nodesById.put(node.id, node);
+            }
+        }
+        root = build(nodes, 0, nodes.size() - 1);
+    }
+
+    public boolean remove(int id) {
+        IntervalNode node = nodesById.remove(id);
+        if (node == null) {
+            return false;
+        }
+        root = delete(root, node.start, node.id);
+        return true;
+    }
+
+    public void clear() {
+        root = null;
+        nodesById.clear();
+    }
+
+    public boolean hasOverlap(LocalDateTime start, LocalDateTime end, int excludedId) {
+        return findFirst(root, start, end, id -> id == excludedId) != null;
+    }
+
+    public boolean hasOverlap(LocalDateTime start, LocalDateTime end, IntPredicate excluded) {
+        return findFirst(root, start, end, excluded) != null;
+    }
+
+    // Окончание самого раннего по началу интервала, пересекающегося с [start, end), или null
+    public LocalDateTime overlapEnd(LocalDateTime start, LocalDateTime end) {
+        IntervalNode node = findFirst(root, start, end, id -> false);
+        return node == null ? null : node.end;
+    }
+
+    public List<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<Task> result = new ArrayList<>();
+        collect(root, start, end, result);
+        return result;
+    }
+
+    private static boolean overlaps(IntervalNode node, LocalDateTime start, LocalDateTime end) {
+        return start.isBefore(node.end) && node.start.isBefore(end);
+    }
+
+    private static IntervalNode findFirst(IntervalNode node, LocalDateTime start, LocalDateTime end,
+                                          IntPredicate excluded) {
+        if (node == null || !start.isBefore(node.maxEnd)) {
+            return null;
+        }
+        IntervalNode found = findFirst(node.left, start, end, excluded);
+        if (found != null) {
+            return found;
+        }
+        if (!node.start.isBefore(end)) {
+            return null;
+        }
+        if (!excluded.test(node.id) && overlaps(node, start, end)) {
+            return node;
+        }
+        return findFirst(node.right, start, end, excluded);
+    }
+
+    private static void collect(IntervalNode node, LocalDateTime start, LocalDateTime end, List<Task> result) {
+        if (node == null || !start.isBefore(node.maxEnd)) {
+            return;
+        }
+        collect(node.left, start, end, result);
+        if (!node.start.isBefore(end)) {
+            return;
+        }
+        if (overlaps(node, start, end)) {
+            result.add(node.task);
+        }
+        collect(node.right, start, end, result);
+    }
+
+    private static int compare(LocalDateTime start, int id, IntervalNode node) {
+        int cmp = start.compareTo(node.start);
+        return cmp != 0 ? cmp : Integer.compare(id, node.id);
+    }
+
+    private static IntervalNode build(List<IntervalNode> nodes, int from, int to) {
+        if (from > to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        IntervalNode node = nodes.get(middle);
+        node.left = build(nodes, from, middle - 1);
+        node.right = build(nodes, middle + 1, to);
+        update(node);
+        return node;
+    }
+
+    private static IntervalNode insert(IntervalNode node, IntervalNode newNode) {
+        if (node == null) {
+            return newNode;
+        }
+        if (compare(newNode.start, newNode.id, node) < 0) {
+            node.left = insert(node.left, newNode);
+        } else {
+            node.right = insert(node.right, newNode);
+        }
+        return balance(node);
+    }
+
+    private static IntervalNode delete(IntervalNode node, LocalDateTime start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(start, id, node);
+        if (cmp < 0) {
+            node.left = delete(node.left, start, id);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, start, id);
+        } else {
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            IntervalNode successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = deleteMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return balance(node);
+    }
+
+    private static IntervalNode deleteMin(IntervalNode node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(IntervalNode node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static void update(IntervalNode node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+        LocalDateTime maxEnd = node.end;
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static IntervalNode balance(IntervalNode node) {
+        update(node);
+        int factor = height(node.left) - height(node.right);
+        if (factor > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (factor < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static IntervalNode rotateRight(IntervalNode node) {
+        IntervalNode left = node.left;
+        node.left = left.right;
+        left.right = node;
+        update(node);
+        update(left);
+        return left;
+    }
+
+    private static IntervalNode rotateLeft(IntervalNode node) {
+        IntervalNode right = node.right;
+        node.right = right.left;
+        right.left = node;
+        update(node);
+        update(right);
+        return right;
+    }
+}
@@ -0,0 +1,239 @@
+package managers;
+
+import util.LatencyHistogram;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+// Метрики одного менеджера: гистограмма задержек на каждую операцию и размеры хранилищ.
+// Читаются напрямую (getOperations(), getStoreSizes()) или через JMX после register():
+// общий бин java-kanban:type=TaskManager,name=<имя> и по бину на операцию с ключом operation=<операция>
+public class ManagerMetrics implements ManagerMetricsMXBean {
+    public static final String JMX_DOMAIN = "java-kanban";
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final String name;
+    private final Map<String, LatencyHistogram> operations = new ConcurrentSkipListMap<>();
+    private volatile boolean enabled = true;
+    private volatile Supplier<StoreSizes> sizeSource = () -> new StoreSizes(0, 0, 0, 0, 0, 0);
+    private MBeanServer server;  // сервер, в котором зарегистрированы бины, или null
+
+    public ManagerMetrics(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Имя метрик не может быть пустым.");
+        }
+        this.name = name;
+    }
+
+    // Выключенные метрики без публикации: для кода, которому замеры не нужны
+    static ManagerMetrics disabled() {
+        ManagerMetrics metrics = new ManagerMetrics("disabled");
+        metrics.enabled = false;
+        return metrics;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Гистограмма операции; создаётся при первом обращении и, если метрики уже в JMX, сразу публикуется
+    public LatencyHistogram histogram(String operation) {
+        LatencyHistogram existing = operations.get(operation);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (this) {
+            LatencyHistogram histogram = operations.computeIfAbsent(operation, key -> new LatencyHistogram());
+            if (server != null && !server.isRegistered(operationName(operation))) {
+                registerBean(new OperationMetrics(histogram), operationName(operation));
+            }
+            return histogram;
+        }
+    }
+
+    // Гистограммы по имени операции, в алфавитном порядке
+    public Map<String, LatencyHistogram> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+
+    void setSizeSource(Supplier<StoreSizes> sizeSource) {
+        this.sizeSource = sizeSource;
+    }
+
+    public StoreSizes getStoreSizes() {
+        return sizeSource.get();
+    }
+
+    // Начало замера: при выключенных метриках время не читается
+    long start() {
+        return enabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    void stop(LatencyHistogram histogram, long start) {
+        if (start != NOT_TIMED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public int getTaskCount() {
+        return getStoreSizes().tasks();
+    }
+
+    @Override
+    public int getEpicCount() {
+        return getStoreSizes().epics();
+    }
+
+    @Override
+    public int getSubtaskCount() {
+        return getStoreSizes().subtasks();
+    }
+
+    @Override
+    public int getScheduledCount() {
+        return getStoreSizes().scheduled();
+    }
+
+    @Override
+    public int getIndexedWordCount() {
+        return getStoreSizes().indexedWords();
+    }
+
+    @Override
+    public int getHistorySize() {
+        return getStoreSizes().history();
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : operations.values()) {
+            histogram.reset();
+        }
+    }
+
+    // Публикует метрики в платформенном MBeanServer
+    public synchronized void register() {
+        if (server != null) {
+            return;
+        }
+        MBeanServer platform = ManagementFactory.getPlatformMBeanServer();
+        try {
+            platform.registerMBean(this, managerName());
+        } catch (InstanceAlreadyExistsException e) {
+            throw new IllegalArgumentException("Метрики с именем " + name + " уже зарегистрированы.", e);
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики " + name + ".", e);
+        }
+        server = platform;
+        for (Map.Entry<String, LatencyHistogram> entry : operations.entrySet()) {
+            registerBean(new OperationMetrics(entry.getValue()), operationName(entry.getKey()));
+        }
+    }
+
+    public synchronized void unregister() {
+        if (server == null) {
+            return;
+        }
+        unregisterBean(managerName());
+        for (String operation : operations.keySet()) {
+            unregisterBean(operationName(operation));
+        }
+        server = null;
+    }
+
+    private void registerBean(Object bean, ObjectName objectName) {
+        try {
+            server.registerMBean(bean, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики " + objectName + ".", e);
+        }
+    }
+
+    private void unregisterBean(ObjectName objectName) {
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось снять с регистрации метрики " + objectName + ".", e);
+        }
+    }
+
+    public ObjectName managerName() {
+        return objectName("type=TaskManager,name=" + ObjectName.quote(name));
+    }
+
+    public ObjectName operationName(String operation) {
+        return objectName("type=TaskManager,name=" + ObjectName.quote(name)
+                + ",operation=" + ObjectName.quote(operation));
+    }
+
+    private static ObjectName objectName(String properties) {
+        try {
+            return new ObjectName(JMX_DOMAIN + ":" + properties);
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalArgumentException("Некорректное имя метрик: " + properties, e);
+        }
+    }
+
+    private record OperationMetrics(LatencyHistogram histogram) implements OperationMetricsMXBean {
+        @Override
+        public long getCount() {
+            return histogram.getCount();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            return histogram.getMean();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return histogram.getValueAtPercentile(50);
+        }
+
+        @Override
+        public long getP90Nanos() {
+            return histogram.getValueAtPercentile(90);
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return histogram.getValueAtPercentile(99);
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return histogram.getValueAtPercentile(99.9);
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return histogram.getMax();
+        }
+
+        @Override
+        public void reset() {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package managers;
+
+// Общие показатели менеджера в JMX: переключатель замеров и размеры хранилищ и индексов
+public interface ManagerMetricsMXBean {
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    int getTaskCount();
+
+    int getEpicCount();
+
+    int getSubtaskCount();
+
+    int getScheduledCount();
+
+    int getIndexedWordCount();
+
+    int getHistorySize();
+
+    // Сбрасывает гистограммы всех операций
+    void reset();
+}
@@ -0,0 +1,20 @@
+package managers;
+
+// Показатели одной операции в JMX; задержки в наносекундах
+public interface OperationMetricsMXBean {
+    long getCount();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+
+    void reset();
+}
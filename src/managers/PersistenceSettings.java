@@ -0,0 +1,170 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+public class PersistenceSettings {
+    private boolean journalEnabled;
+    private int checkpointInterval = 1000;
+    private long checkpointBytes = 16L * 1024 * 1024;
+    private boolean backgroundCompaction;
+    private HistoryPersistence historyPersistence = HistoryPersistence.DEBOUNCED;
+    private Duration historyFlushInterval = Duration.ofSeconds(5);
+    private boolean memoryMapped;
+    private SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+    private int historyCapacity = InMemoryHistoryManager.UNBOUNDED;
+    private boolean asyncWrites;
+    private int groupCommitSize = 512;
+    private Duration groupCommitDelay = Duration.ofMillis(20);
+    private Consumer<ManagerSaveException> writeErrorHandler;
+    private boolean atomicSaves;
+    private ManagerMetrics metrics;
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public void setJournalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Интервал контрольной точки должен быть положительным.");
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public long getCheckpointBytes() {
+        return checkpointBytes;
+    }
+
+    // Контрольная точка делается и тогда, когда журнал после предыдущей вырос до checkpointBytes
+    public void setCheckpointBytes(long checkpointBytes) {
+        if (checkpointBytes <= 0) {
+            throw new IllegalArgumentException("Размер журнала для контрольной точки должен быть положительным.");
+        }
+        this.checkpointBytes = checkpointBytes;
+    }
+
+    public boolean isBackgroundCompaction() {
+        return backgroundCompaction;
+    }
+
+    // Контрольные точки синхронного журнала пишутся фоновым потоком, не задерживая изменения
+    public void setBackgroundCompaction(boolean backgroundCompaction) {
+        this.backgroundCompaction = backgroundCompaction;
+    }
+
+    public HistoryPersistence getHistoryPersistence() {
+        return historyPersistence;
+    }
+
+    public void setHistoryPersistence(HistoryPersistence historyPersistence) {
+        this.historyPersistence = historyPersistence;
+    }
+
+    public Duration getHistoryFlushInterval() {
+        return historyFlushInterval;
+    }
+
+    public void setHistoryFlushInterval(Duration historyFlushInterval) {
+        if (historyFlushInterval.isNegative()) {
+            throw new IllegalArgumentException("Интервал записи истории не может быть отрицательным.");
+        }
+        this.historyFlushInterval = historyFlushInterval;
+    }
+
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+
+    public void setMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    public int getHistoryCapacity() {
+        return historyCapacity;
+    }
+
+    public void setHistoryCapacity(int historyCapacity) {
+        if (historyCapacity <= 0) {
+            throw new IllegalArgumentException("Размер истории должен быть положительным.");
+        }
+        this.historyCapacity = historyCapacity;
+    }
+
+    public boolean isAsyncWrites() {
+        return asyncWrites;
+    }
+
+    // Изменения пишет фоновый поток группами записей журнала; долговечность подтверждают flush()
+    // и awaitDurable(). Работает только вместе с журналом
+    public void setAsyncWrites(boolean asyncWrites) {
+        this.asyncWrites = asyncWrites;
+    }
+
+    public int getGroupCommitSize() {
+        return groupCommitSize;
+    }
+
+    public void setGroupCommitSize(int groupCommitSize) {
+        if (groupCommitSize <= 0) {
+            throw new IllegalArgumentException("Размер группы записи должен быть положительным.");
+        }
+        this.groupCommitSize = groupCommitSize;
+    }
+
+    public Duration getGroupCommitDelay() {
+        return groupCommitDelay;
+    }
+
+    public void setGroupCommitDelay(Duration groupCommitDelay) {
+        if (groupCommitDelay.isNegative()) {
+            throw new IllegalArgumentException("Задержка записи группы не может быть отрицательной.");
+        }
+        this.groupCommitDelay = groupCommitDelay;
+    }
+
+    public Consumer<ManagerSaveException> getWriteErrorHandler() {
+        return writeErrorHandler;
+    }
+
+    // Без обработчика ошибка фоновой записи выбрасывается из следующего изменяющего вызова менеджера
+    public void setWriteErrorHandler(Consumer<ManagerSaveException> writeErrorHandler) {
+        this.writeErrorHandler = writeErrorHandler;
+    }
+
+    public boolean isAtomicSaves() {
+        return atomicSaves;
+    }
+
+    // Снимок пишется во временный файл с контрольной суммой и после fsync переименовывается на место.
+    // Каждая контрольная точка платит за fsync, поэтому режим рассчитан на журнал или фоновую запись
+    public void setAtomicSaves(boolean atomicSaves) {
+        this.atomicSaves = atomicSaves;
+    }
+
+    public ManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Куда писать задержки записи снимков ("save"), журнала ("journal") и операций истории
+    public void setMetrics(ManagerMetrics metrics) {
+        this.metrics = metrics;
+    }
+}
@@ -0,0 +1,6 @@
+package managers;
+
+public enum SnapshotFormat {
+    CSV,
+    BINARY
+}
@@ -0,0 +1,64 @@
+package managers;
+
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+import util.IntHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Вторичный индекс задач: тип -> статус -> задачи по id. Запрос возвращает только нужную корзину,
+// поэтому его стоимость зависит от размера ответа, а не от числа задач в менеджере
+public class StatusIndex {
+    private final Map<TaskType, Map<TaskStatus, IntHashMap<Task>>> buckets = new EnumMap<>(TaskType.class);
+
+    public StatusIndex() {
+        for (TaskType type : TaskType.values()) {
+            Map<TaskStatus, IntHashMap<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                byStatus.put(status, new IntHashMap<>());
+            }
+            buckets.put(type, byStatus);
+        }
+    }
+
+    // Добавляет задачу или переносит её в корзину текущего статуса
+    public void add(Task task) {
+        for (Map.Entry<TaskStatus, IntHashMap<Task>> entry : buckets.get(task.getTaskType()).entrySet()) {
+            if (entry.getKey() == task.getStatus()) {
+                entry.getValue().put(task.getId(), task);
+            } else {
+                entry.getValue().remove(task.getId());
+            }
+        }
+    }
+
+    // Статус объекта мог измениться снаружи, поэтому задача удаляется из всех корзин своего типа
+    public void remove(Task task) {
+        for (IntHashMap<Task> bucket : buckets.get(task.getTaskType()).values()) {
+            bucket.remove(task.getId());
+        }
+    }
+
+    public void clear(TaskType type) {
+        for (IntHashMap<Task> bucket : buckets.get(type).values()) {
+            bucket.clear();
+        }
+    }
+
+    public Collection<Task> get(TaskType type, TaskStatus status) {
+        return buckets.get(type).get(status).values();
+    }
+
+    public List<Task> get(TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (Map<TaskStatus, IntHashMap<Task>> byStatus : buckets.values()) {
+            result.addAll(byStatus.get(status).values());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,6 @@
+package managers;
+
+// Размеры хранилищ и индексов менеджера в один момент: scheduled - задачи в расписании,
+// indexedWords - различные слова полнотекстового индекса, history - записи истории
+public record StoreSizes(int tasks, int epics, int subtasks, int scheduled, int indexedWords, int history) {
+}
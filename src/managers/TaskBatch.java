@@ -0,0 +1,149 @@
+package managers;
+
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+// Пакет изменений для TaskManager.applyBatch: операции применяются по порядку и целиком - если итоговое
+// расписание содержит пересечения, менеджер не меняется. Операции, которые по отдельности были бы
+// проигнорированы (обновление несуществующей задачи, подзадача без эпика), пропускаются и здесь.
+public class TaskBatch {
+    public enum Kind {
+        ADD,
+        UPDATE,
+        DELETE
+    }
+
+    public record Operation(Kind kind, TaskType type, int id, Task task) {
+    }
+
+    // Есть ли в текущем расписании пересечение с [start, end) среди задач, не отмеченных excluded
+    interface Schedule {
+        boolean hasOverlap(LocalDateTime start, LocalDateTime end, IntPredicate excluded);
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public TaskBatch add(Task task) {
+        operations.add(new Operation(Kind.ADD, task.getTaskType(), task.getId(), task));
+        return this;
+    }
+
+    public TaskBatch update(Task task) {
+        operations.add(new Operation(Kind.UPDATE, task.getTaskType(), task.getId(), task));
+        return this;
+    }
+
+    public TaskBatch delete(TaskType type, int id) {
+        operations.add(new Operation(Kind.DELETE, type, id, null));
+        return this;
+    }
+
+    // Назначает id добавляемым задачам без id. Подзадача может ссылаться на эпик из того же пакета,
+    // только если id эпику назначен до создания подзадачи
+    void assignIds(IdAllocator idAllocator) {
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            if (operation.kind() == Kind.ADD && operation.task().getId() == Task.NO_ID) {
+                operation.task().assignId(idAllocator.nextId());
+                operations.set(i, new Operation(Kind.ADD, operation.type(), operation.task().getId(),
+                        operation.task()));
+            }
+        }
+    }
+
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    // Проверяет итоговое расписание после пакета: задачи пакета сортируются по началу и добавляются в
+    // отдельный индекс, каждая сверяется с ним и с текущим расписанием без затронутых пакетом задач.
+    // lookup ищет задачу любого типа по id в текущем состоянии менеджера.
+    void validate(IntFunction<Task> lookup, Schedule schedule) {
+        Map<Integer, Task> result = plan(lookup);
+        List<Task> scheduled = new ArrayList<>();
+        for (Task task : result.values()) {
+            if (task != null && task.getStartTime() != null && task.getDuration() != null) {
+                scheduled.add(task);
+            }
+        }
+        scheduled.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+        IntervalIndex batchIndex = new IntervalIndex();
+        for (Task task : scheduled) {
+            if (batchIndex.hasOverlap(task.getStartTime(), task.getEndTime(), task.getId())
+                    || schedule.hasOverlap(task.getStartTime(), task.getEndTime(), result::containsKey)) {
+                throw new IllegalArgumentException("Задача " + task.getId()
+                        + " пакета пересекается по времени с существующей.");
+            }
+            batchIndex.add(task);
+        }
+    }
+
+    // Итоговое состояние затронутых задач: id -> задача после пакета или null, если задача удалена
+    private Map<Integer, Task> plan(IntFunction<Task> lookup) {
+        Map<Integer, Task> result = new HashMap<>();
+        IntFunction<Task> current = id -> result.containsKey(id) ? result.get(id) : lookup.apply(id);
+        for (Operation operation : operations) {
+            Task existing = current.apply(operation.id());
+            boolean sameType = existing != null && existing.getTaskType() == operation.type();
+            switch (operation.kind()) {
+                case ADD -> {
+                    if (!(operation.task() instanceof Subtask subtask)
+                            || current.apply(subtask.getEpicId()) instanceof Epic) {
+                        result.put(operation.id(), operation.task());
+                    }
+                }
+                case UPDATE -> {
+                    if (sameType) {
+                        result.put(operation.id(), operation.task());
+                    }
+                }
+                case DELETE -> {
+                    if (sameType) {
+                        result.put(operation.id(), null);
+                        if (existing instanceof Epic epic) {
+                            deleteSubtasksOf(epic, result);
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void deleteSubtasksOf(Epic epic, Map<Integer, Task> result) {
+        for (PrimitiveIterator.OfInt it = epic.getSubtaskIdSet().iterator(); it.hasNext(); ) {
+            result.put(it.nextInt(), null);
+        }
+        List<Integer> added = new ArrayList<>();
+        for (Map.Entry<Integer, Task> entry : result.entrySet()) {
+            if (entry.getValue() instanceof Subtask subtask && subtask.getEpicId() == epic.getId()) {
+                added.add(entry.getKey());
+            }
+        }
+        for (Integer id : added) {
+            result.put(id, null);
+        }
+    }
+}
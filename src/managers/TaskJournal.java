@@ -0,0 +1,273 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import model.Task;
+import model.enums.TaskType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Журнал изменений: каждая операция дописывается в конец файла одной записью CSV.
+// При фоновом уплотнении текущий файл закрывается как сегмент <журнал>.<номер>, а записи идут в новый;
+// сегменты, вошедшие в снимок, удаляются. Воспроизводятся закрытые сегменты по возрастанию номера, затем текущий
+public class TaskJournal implements Closeable {
+    private final File file;
+    private FileChannel channel;
+    private int size;
+    private int lastSegment;  // номер последнего закрытого сегмента
+
+    public TaskJournal(File file) {
+        this.file = file;
+        int[] segments = sealedSegments();
+        this.lastSegment = segments.length == 0 ? 0 : segments[segments.length - 1];
+    }
+
+    public static File journalFileFor(File snapshotFile) {
+        return new File(snapshotFile.getPath() + ".journal");
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int lastSegment() {
+        return lastSegment;
+    }
+
+    // Размер журнала на диске вместе с закрытыми сегментами
+    public long length() {
+        long length = file.length();
+        for (int number : sealedSegments()) {
+            length += segmentFile(number).length();
+        }
+        return length;
+    }
+
+    // Одна операция журнала, записывающая себя в CSV: одна запись или целая группа пакета
+    interface Entry {
+        void writeTo(CsvTaskWriter writer) throws IOException;
+    }
+
+    static Entry upsert(Task task) {
+        return writer -> {
+            writer.writeAscii("U,");
+            writer.writeTask(task);
+        };
+    }
+
+    static Entry delete(TaskType type, int id) {
+        return writer -> {
+            writer.writeAscii("D," + type.name() + ",");
+            writer.writeInt(id);
+            writer.endRecord();
+        };
+    }
+
+    static Entry clear(TaskType type) {
+        return writer -> {
+            writer.writeAscii("C," + type.name());
+            writer.endRecord();
+        };
+    }
+
+    // Пакет пишется группой: заголовок B с числом записей, затем сами записи. Неполная группа в конце
+    // файла (сбой посреди записи) при воспроизведении отбрасывается целиком
+    static Entry batch(List<TaskBatch.Operation> operations) {
+        return writer -> {
+            writer.writeAscii("B,");
+            writer.writeInt(operations.size());
+            writer.endRecord();
+            for (TaskBatch.Operation operation : operations) {
+                if (operation.kind() == TaskBatch.Kind.DELETE) {
+                    delete(operation.type(), operation.id()).writeTo(writer);
+                } else {
+                    upsert(operation.task()).writeTo(writer);
+                }
+            }
+        };
+    }
+
+    // Кодирует записи в байты сразу, в потоке вызывающего: фоновый писатель не должен читать
+    // объекты задач, которые менеджер может менять
+    static byte[] encode(Entry entry) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvTaskWriter writer = new CsvTaskWriter(Channels.newChannel(out))) {
+            entry.writeTo(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // Возвращает число записанных байт
+    long append(Entry entry, int records) {
+        long written;
+        try (CsvTaskWriter writer = new CsvTaskWriter(channel())) {
+            entry.writeTo(writer);
+            writer.flush();
+            written = writer.written();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал: " + file.getName(), e);
+        }
+        size += records;
+        return written;
+    }
+
+    // Дописывает заранее закодированные записи одной операцией записи. Вызывается фоновым писателем,
+    // число записей в этом режиме считает сам менеджер
+    void appendEncoded(byte[] encoded) {
+        try {
+            FileChannel channel = channel();
+            ByteBuffer buffer = ByteBuffer.wrap(encoded);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал: " + file.getName(), e);
+        }
+    }
+
+    // Дожидается, пока записанное попадёт на диск
+    void force() {
+        try {
+            channel().force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка записи в журнал: " + file.getName(), e);
+        }
+    }
+
+    // Передаёт обработчику каждую запись журнала и возвращает их количество
+    public int replay(Consumer<CsvTaskReader> handler) {
+        return replay(handler, 0);
+    }
+
+    // Сегменты до coveredSegment включительно уже вошли в снимок: они не воспроизводятся, а удаляются
+    public int replay(Consumer<CsvTaskReader> handler, int coveredSegment) {
+        deleteSegmentsUpTo(coveredSegment);
+        int count = 0;
+        for (int number : sealedSegments()) {
+            count += replayFile(segmentFile(number), handler);
+        }
+        count += replayFile(file, handler);
+        size = count;
+        return count;
+    }
+
+    private static int replayFile(File source, Consumer<CsvTaskReader> handler) {
+        int count = 0;
+        if (source.exists()) {
+            try (CsvTaskReader reader = CsvTaskReader.open(source, false)) {
+                while (reader.next()) {
+                    if (!reader.isBlank()) {
+                        handler.accept(reader);
+                        count++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка чтения журнала: " + source.getName(), e);
+            }
+        }
+        return count;
+    }
+
+    // Закрывает текущий файл как очередной сегмент, следующие записи пойдут в новый.
+    // Возвращает номер последнего закрытого сегмента; пустой файл сегментом не становится
+    public int roll() {
+        if (file.length() > 0) {
+            close();
+            try {
+                Files.move(file.toPath(), segmentFile(lastSegment + 1).toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка закрытия сегмента журнала: " + file.getName(), e);
+            }
+            lastSegment++;
+            size = 0;
+        }
+        return lastSegment;
+    }
+
+    // Удаляет сегменты, уже вошедшие в снимок. Удаление идёт по возрастанию номера, поэтому после сбоя
+    // остаются только более новые сегменты. Текущий файл не трогает и может вызываться из другого потока
+    public void deleteSegmentsUpTo(int coveredSegment) {
+        for (int number : sealedSegments()) {
+            if (number > coveredSegment) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(segmentFile(number).toPath());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка удаления сегмента журнала: " + file.getName(), e);
+            }
+        }
+    }
+
+    // Вызывается после записи контрольной точки: все записи журнала уже отражены в снимке
+    public void reset() {
+        try {
+            channel().truncate(0);
+            size = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка очистки журнала: " + file.getName(), e);
+        }
+        deleteSegmentsUpTo(Integer.MAX_VALUE);
+    }
+
+    private File segmentFile(int number) {
+        return new File(file.getPath() + "." + number);
+    }
+
+    // Номера закрытых сегментов по возрастанию
+    private int[] sealedSegments() {
+        String prefix = file.getName() + ".";
+        String[] names = file.getAbsoluteFile().getParentFile().list((directory, name) ->
+                name.length() > prefix.length() && name.startsWith(prefix)
+                        && name.substring(prefix.length()).chars().allMatch(Character::isDigit));
+        if (names == null) {
+            return new int[0];
+        }
+        int[] numbers = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            numbers[i] = Integer.parseInt(names[i].substring(prefix.length()));
+        }
+        Arrays.sort(numbers);
+        return numbers;
+    }
+
+    @Override
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка закрытия журнала: " + file.getName(), e);
+        } finally {
+            channel = null;
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -1,11 +1,18 @@
 package managers;
 
 import model.Epic;
+import model.IdAllocator;
 import model.Subtask;
 import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public interface TaskManager {
     ArrayList<Task> getAllTasks();
@@ -14,6 +21,20 @@ public interface TaskManager {
 
     ArrayList<Epic> getAllEpics();
 
+    // Постраничный обход по возрастанию id без копирования хранилища и без записи в историю
+    TaskPage<Task> getTasksPage(int afterId, int limit, Predicate<? super Task> filter);
+
+    TaskPage<Subtask> getSubtasksPage(int afterId, int limit, Predicate<? super Subtask> filter);
+
+    TaskPage<Epic> getEpicsPage(int afterId, int limit, Predicate<? super Epic> filter);
+
+    // Ленивые потоки по возрастанию id, просмотры в историю тоже не попадают
+    Stream<Task> streamTasks();
+
+    Stream<Subtask> streamSubtasks();
+
+    Stream<Epic> streamEpics();
+
     void deleteAllTasks();
 
     void deleteAllEpics();
@@ -50,5 +71,37 @@ public interface TaskManager {
 
     List<Task> getHistory();
 
+    // Запросы по вторичным индексам: время зависит от размера ответа, просмотры в историю не попадают
+    List<Task> getByStatus(TaskStatus status);
+
+    List<Task> getByTypeAndStatus(TaskType type, TaskStatus status);
+
+    List<Subtask> getSubtasksOfEpic(int epicId);
+
+    // Задачи, в названии или описании которых есть все слова запроса; "слово*" ищет по началу слова
+    List<Task> search(String query, int limit);
+
     List<Task> getPrioritizedTasks();
+
+    // Применяет все операции пакета или, если итоговое расписание содержит пересечения, ни одной
+    void applyBatch(TaskBatch batch);
+
+    // Срезы расписания по времени начала: стоимость пропорциональна размеру ответа
+    List<Task> getPrioritizedBetween(LocalDateTime from, LocalDateTime to);
+
+    List<Task> getNextN(LocalDateTime after, int n);
+
+    List<Task> findOverlapping(LocalDateTime start, LocalDateTime end);
+
+    // Самое раннее начало интервала длительностью duration, который целиком лежит в [notBefore, notAfter]
+    // и ни с чем не пересекается, или null, если места нет
+    LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter);
+
+    // Размещает интервалы по порядку, каждый следующий не пересекается и с уже размещёнными
+    List<LocalDateTime> findFreeSlots(List<Duration> durations, LocalDateTime notBefore, LocalDateTime notAfter);
+
+    IdAllocator getIdAllocator();
+
+    // Размеры хранилищ и индексов, без копирования
+    StoreSizes getStoreSizes();
 }
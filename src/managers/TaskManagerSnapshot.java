@@ -0,0 +1,389 @@
+package managers;
+
+import model.Epic;
+import model.IdAllocator;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+import util.IntHashMap;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Неизменяемый срез InMemoryTaskManager на момент вызова snapshot(). Хранилища делятся с менеджером
+// по принципу copy-on-write: снимок создаётся за O(1), а изменение хранилища после снимка копирует
+// только затронутые куски его массивов (IntHashMap.snapshot). Порядок по времени и эпики строятся лениво
+// при первом запросе к снимку. Задачи и подзадачи менеджер при обновлении заменяет, поэтому их объекты
+// общие со снимком; агрегаты эпиков менеджер пересчитывает на месте, поэтому эпики снимка пересчитываются
+// по подзадачам снимка. Наружу, как и менеджер, снимок отдаёт копии. Просмотры в снимке история не записывает.
+public class TaskManagerSnapshot implements TaskManager {
+    private final IntHashMap<Task> tasks;
+    private final IntHashMap<Epic> epics;
+    private final IntHashMap<Subtask> subtasks;
+    private final IdAllocator idAllocator;
+    private IntHashMap<Epic> epicCopies;
+    private IntHashMap<List<Subtask>> subtasksByEpic;
+    private List<Task> prioritized;
+    private IntervalIndex intervalIndex;
+    private TextIndex textIndex;
+
+    TaskManagerSnapshot(IntHashMap<Task> tasks, IntHashMap<Epic> epics, IntHashMap<Subtask> subtasks,
+                        IdAllocator idAllocator) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.idAllocator = idAllocator;
+    }
+
+    private synchronized IntHashMap<List<Subtask>> subtasksByEpic() {
+        if (subtasksByEpic == null) {
+            subtasksByEpic = new IntHashMap<>(epics.size());
+            for (Subtask subtask : subtasks.values()) {
+                if (epics.containsKey(subtask.getEpicId())) {
+                    List<Subtask> epicSubtasks = subtasksByEpic.get(subtask.getEpicId());
+                    if (epicSubtasks == null) {
+                        epicSubtasks = new ArrayList<>();
+                        subtasksByEpic.put(subtask.getEpicId(), epicSubtasks);
+                    }
+                    epicSubtasks.add(subtask);
+                }
+            }
+        }
+        return subtasksByEpic;
+    }
+
+    private synchronized IntHashMap<Epic> epics() {
+        if (epicCopies == null) {
+            IntHashMap<List<Subtask>> grouped = subtasksByEpic();
+            epicCopies = new IntHashMap<>(epics.size());
+            for (var it = epics.valuesAfter(TaskPage.FIRST); it.hasNext(); ) {
+                Epic epic = it.next();
+                Epic copy = new Epic(epic.getId(), epic.getName(), epic.getDescription(), TaskStatus.NEW);
+                List<Subtask> epicSubtasks = grouped.get(epic.getId());
+                copy.recalculate(epicSubtasks == null ? List.of() : epicSubtasks);
+                epicCopies.put(copy.getId(), copy);
+            }
+        }
+        return epicCopies;
+    }
+
+    private synchronized List<Task> prioritized() {
+        if (prioritized == null) {
+            List<Task> scheduled = new ArrayList<>();
+            for (Task task : tasks.values()) {
+                if (task.getStartTime() != null && task.getDuration() != null) {
+                    scheduled.add(task);
+                }
+            }
+            for (Subtask subtask : subtasks.values()) {
+                if (subtask.getStartTime() != null && subtask.getDuration() != null
+                        && epics.containsKey(subtask.getEpicId())) {
+                    scheduled.add(subtask);
+                }
+            }
+            scheduled.sort(Comparator.comparing(Task::getStartTime).thenComparingInt(Task::getId));
+            intervalIndex = new IntervalIndex();
+            intervalIndex.addAllSorted(scheduled);
+            prioritized = scheduled;
+        }
+        return prioritized;
+    }
+
+    private synchronized IntervalIndex intervalIndex() {
+        prioritized();
+        return intervalIndex;
+    }
+
+    // Поисковый индекс строится при первом поиске; после этого он только читается
+    private synchronized TextIndex textIndex() {
+        if (textIndex == null) {
+            textIndex = new TextIndex();
+            textIndex.addAll(tasks.values());
+            textIndex.addAll(epics.values());
+            for (Subtask subtask : subtasks.values()) {
+                if (epics.containsKey(subtask.getEpicId())) {
+                    textIndex.add(subtask);
+                }
+            }
+        }
+        return textIndex;
+    }
+
+    // Индекс первой задачи расписания, начинающейся не раньше time
+    private static int lowerBound(List<Task> sorted, LocalDateTime time) {
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted.get(middle).getStartTime().isBefore(time)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static <T extends Task> T copyOrNull(T task) {
+        return task == null ? null : InMemoryTaskManager.copyOf(task);
+    }
+
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("Снимок доступен только для чтения.");
+    }
+
+    @Override
+    public ArrayList<Task> getAllTasks() {
+        return new ArrayList<>(InMemoryTaskManager.copies(tasks.values()));
+    }
+
+    @Override
+    public ArrayList<Subtask> getAllSubtasks() {
+        return new ArrayList<>(InMemoryTaskManager.copies(subtasks.values()));
+    }
+
+    @Override
+    public ArrayList<Epic> getAllEpics() {
+        return new ArrayList<>(InMemoryTaskManager.copies(epics().values()));
+    }
+
+    @Override
+    public TaskPage<Task> getTasksPage(int afterId, int limit, Predicate<? super Task> filter) {
+        return TaskPage.collect(InMemoryTaskManager.copies(tasks.valuesAfter(afterId)), afterId, limit, filter);
+    }
+
+    @Override
+    public TaskPage<Subtask> getSubtasksPage(int afterId, int limit, Predicate<? super Subtask> filter) {
+        return TaskPage.collect(InMemoryTaskManager.copies(subtasks.valuesAfter(afterId)), afterId, limit, filter);
+    }
+
+    @Override
+    public TaskPage<Epic> getEpicsPage(int afterId, int limit, Predicate<? super Epic> filter) {
+        return TaskPage.collect(InMemoryTaskManager.copies(epics().valuesAfter(afterId)), afterId, limit, filter);
+    }
+
+    @Override
+    public Stream<Task> streamTasks() {
+        return InMemoryTaskManager.stream(tasks);
+    }
+
+    @Override
+    public Stream<Subtask> streamSubtasks() {
+        return InMemoryTaskManager.stream(subtasks);
+    }
+
+    @Override
+    public Stream<Epic> streamEpics() {
+        return InMemoryTaskManager.stream(epics());
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return copyOrNull(tasks.get(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return copyOrNull(epics().get(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return copyOrNull(subtasks.get(id));
+    }
+
+    @Override
+    public ArrayList<Integer> getSubtasksIdsOfEpic(Epic epic) {
+        ArrayList<Integer> ids = new ArrayList<>();
+        for (Subtask subtask : getSubtasksOfEpic(epic.getId())) {
+            ids.add(subtask.getId());
+        }
+        return ids;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksOfEpic(int epicId) {
+        List<Subtask> epicSubtasks = subtasksByEpic().get(epicId);
+        return epicSubtasks == null ? new ArrayList<>() : InMemoryTaskManager.copies(epicSubtasks);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        TaskPage.checkLimit(limit);
+        List<Integer> ids = textIndex().search(query, limit);
+        List<Task> result = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Task task = tasks.get(id);
+            if (task == null) {
+                task = epics().get(id);
+            }
+            if (task == null) {
+                task = subtasks.get(id);
+            }
+            result.add(task.copy());
+        }
+        return result;
+    }
+
+    // Вторичных индексов по статусу у снимка нет: запросы по статусу проходят по хранилищам снимка
+    @Override
+    public List<Task> getByStatus(TaskStatus status) {
+        List<Task> result = new ArrayList<>();
+        for (TaskType type : TaskType.values()) {
+            result.addAll(getByTypeAndStatus(type, status));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getByTypeAndStatus(TaskType type, TaskStatus status) {
+        Iterable<? extends Task> store = switch (type) {
+            case TASK -> tasks.values();
+            case EPIC -> epics().values();
+            case SUBTASK -> subtasks.values();
+        };
+        List<Task> result = new ArrayList<>();
+        for (Task task : store) {
+            if (task.getStatus() == status) {
+                result.add(task.copy());
+            }
+        }
+        return result;
+    }
+
+    // История к состоянию задач не относится и в снимок не попадает
+    @Override
+    public List<Task> getHistory() {
+        return List.of();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return InMemoryTaskManager.copies(prioritized());
+    }
+
+    @Override
+    public List<Task> getPrioritizedBetween(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал времени.");
+        }
+        List<Task> sorted = prioritized();
+        return InMemoryTaskManager.copies(sorted.subList(lowerBound(sorted, from), lowerBound(sorted, to)));
+    }
+
+    @Override
+    public List<Task> getNextN(LocalDateTime after, int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("Количество задач не может быть отрицательным.");
+        }
+        if (after == null) {
+            throw new IllegalArgumentException("Время не может быть null.");
+        }
+        List<Task> sorted = prioritized();
+        int from = lowerBound(sorted, after);
+        return InMemoryTaskManager.copies(sorted.subList(from, Math.min(sorted.size(), from + n)));
+    }
+
+    @Override
+    public List<Task> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        return InMemoryTaskManager.copies(intervalIndex().findOverlapping(start, end));
+    }
+
+    @Override
+    public LocalDateTime findFreeSlot(Duration duration, LocalDateTime notBefore, LocalDateTime notAfter) {
+        return FreeSlots.find(intervalIndex()::overlapEnd, duration, notBefore, notAfter);
+    }
+
+    @Override
+    public List<LocalDateTime> findFreeSlots(List<Duration> durations, LocalDateTime notBefore,
+                                             LocalDateTime notAfter) {
+        return FreeSlots.findAll(intervalIndex()::overlapEnd, durations, notBefore, notAfter);
+    }
+
+    @Override
+    public IdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    @Override
+    public StoreSizes getStoreSizes() {
+        return new StoreSizes(tasks.size(), epics.size(), subtasks.size(), prioritized().size(),
+                textIndex().termCount(), 0);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        throw readOnly();
+    }
+
+    @Override
+    public Task addTask(Task newTask) {
+        throw readOnly();
+    }
+
+    @Override
+    public Epic addEpic(Epic newEpic) {
+        throw readOnly();
+    }
+
+    @Override
+    public Subtask addSubtask(Subtask newSubtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public Task updateTask(Task updatedTask) {
+        throw readOnly();
+    }
+
+    @Override
+    public Epic updateEpic(Epic updatedEpic) {
+        throw readOnly();
+    }
+
+    @Override
+    public Subtask updateSubtask(Subtask updatedSubtask) {
+        throw readOnly();
+    }
+
+    @Override
+    public void updateStatus(Epic epic) {
+        throw readOnly();
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteTaskById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteEpicById(int id) {
+        throw readOnly();
+    }
+
+    @Override
+    public void deleteSubtaskById(int id) {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,43 @@
+package managers;
+
+import model.Task;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Predicate;
+
+// Страница списка задач по возрастанию id. Следующая страница запрашивается с afterId = nextCursor,
+// первая - с FIRST. Получение страницы не записывает задачи в историю просмотров.
+public record TaskPage<T extends Task>(List<T> items, int nextCursor, boolean hasMore) {
+    public static final int FIRST = Integer.MIN_VALUE;
+    public static final int MAX_SIZE = 1000;
+
+    public TaskPage {
+        items = List.copyOf(items);
+    }
+
+    static void checkLimit(int limit) {
+        if (limit <= 0 || limit > MAX_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_SIZE + ".");
+        }
+    }
+
+    // Берёт из упорядоченного по id обхода не больше limit подходящих задач; копируется только сама страница
+    static <T extends Task> TaskPage<T> collect(Iterator<? extends T> ordered, int afterId, int limit,
+                                                Predicate<? super T> filter) {
+        checkLimit(limit);
+        List<T> items = new ArrayList<>(limit);
+        while (ordered.hasNext()) {
+            T task = ordered.next();
+            if (filter != null && !filter.test(task)) {
+                continue;
+            }
+            if (items.size() == limit) {
+                return new TaskPage<>(items, items.get(limit - 1).getId(), true);
+            }
+            items.add(task);
+        }
+        return new TaskPage<>(items, items.isEmpty() ? afterId : items.get(items.size() - 1).getId(), false);
+    }
+}
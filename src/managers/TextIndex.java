@@ -0,0 +1,348 @@
+package managers;
+
+import model.Task;
+import util.IntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Инвертированный индекс по словам названия и описания: слово -> отсортированный список id.
+// Слова лежат в TreeMap, поэтому поиск по префиксу - диапазон ключей. Для каждой задачи запоминаются
+// её слова; удаление из списков ленивое: устаревшие id отсеиваются проверкой по словам задачи при поиске,
+// а список уплотняется, когда их набирается больше половины
+public class TextIndex {
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final IntHashMap<String[]> termsById = new IntHashMap<>();
+
+    private static final class Postings {
+        final String term;
+        int[] ids = new int[2];
+        int size;
+        int stale;
+
+        Postings(String term) {
+            this.term = term;
+        }
+
+        void add(int id) {
+            if (size == 0 || id > ids[size - 1]) {
+                if (size == ids.length) {
+                    ids = Arrays.copyOf(ids, size * 2);
+                }
+                ids[size++] = id;
+                return;
+            }
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                stale--;  // id снова содержит слово, запись уже на месте
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+
+    // Условие запроса: слово целиком или, для слова со звёздочкой, префикс
+    private record Clause(String term, boolean prefix) {
+        boolean matches(String[] taskTerms) {
+            int position = Arrays.binarySearch(taskTerms, term);
+            if (position >= 0) {
+                return true;
+            }
+            position = -position - 1;
+            return prefix && position < taskTerms.length && taskTerms[position].startsWith(term);
+        }
+    }
+
+    public int size() {
+        return termsById.size();
+    }
+
+    // Число различных слов в индексе
+    public int termCount() {
+        return terms.size();
+    }
+
+    // Индексирует задачу или переиндексирует после изменения: списки меняются только для слов,
+    // которые появились или исчезли
+    public void add(Task task) {
+        String[] newTerms = tokenize(task.getName(), task.getDescription());
+        String[] oldTerms = termsById.get(task.getId());
+        if (oldTerms != null && Arrays.equals(oldTerms, newTerms)) {
+            return;
+        }
+        for (int i = 0; i < newTerms.length; i++) {
+            Postings postings = terms.get(newTerms[i]);
+            if (postings == null) {
+                postings = new Postings(newTerms[i]);
+                terms.put(postings.term, postings);
+            }
+            newTerms[i] = postings.term;  // одна строка на слово для всех задач
+            if (oldTerms == null || Arrays.binarySearch(oldTerms, postings.term) < 0) {
+                postings.add(task.getId());
+            }
+        }
+        termsById.put(task.getId(), newTerms);
+        if (oldTerms != null) {
+            for (String term : oldTerms) {
+                if (Arrays.binarySearch(newTerms, term) < 0) {
+                    markStale(term);
+                }
+            }
+        }
+    }
+
+    public void addAll(Collection<? extends Task> tasks) {
+        for (Task task : tasks) {
+            add(task);
+        }
+    }
+
+    public void remove(int id) {
+        String[] oldTerms = termsById.remove(id);
+        if (oldTerms != null) {
+            for (String term : oldTerms) {
+                markStale(term);
+            }
+        }
+    }
+
+    public void clear() {
+        terms.clear();
+        termsById.clear();
+    }
+
+    private void markStale(String term) {
+        Postings postings = terms.get(term);
+        postings.stale++;
+        if (postings.stale == postings.size) {
+            terms.remove(term);
+        } else if (postings.stale * 2 > postings.size) {
+            compact(postings);
+        }
+    }
+
+    private void compact(Postings postings) {
+        int live = 0;
+        for (int i = 0; i < postings.size; i++) {
+            String[] taskTerms = termsById.get(postings.ids[i]);
+            if (taskTerms != null && Arrays.binarySearch(taskTerms, postings.term) >= 0) {
+                postings.ids[live++] = postings.ids[i];
+            }
+        }
+        postings.size = live;
+        postings.stale = 0;
+    }
+
+    // Id задач, в которых есть все слова запроса, по возрастанию, не больше limit.
+    // Слово со звёздочкой на конце ("отч*") совпадает с любым словом с этим началом
+    public List<Integer> search(String query, int limit) {
+        List<Clause> clauses = parse(query);
+        List<Integer> result = new ArrayList<>();
+        if (clauses.isEmpty()) {
+            return result;
+        }
+        // Перебираем id самого редкого условия. Кандидата сначала ищем в списках остальных точных слов
+        // (по возрастанию id, поэтому курсоры только движутся вперёд), а прошедших проверяем по словам
+        // задачи: так учитываются префиксы и отсеиваются устаревшие id
+        List<Postings> driver = null;
+        long driverSize = Long.MAX_VALUE;
+        List<Postings> exact = new ArrayList<>();
+        for (Clause clause : clauses) {
+            List<Postings> postings = postingsOf(clause);
+            long size = 0;
+            for (Postings list : postings) {
+                size += list.size - list.stale;
+            }
+            if (size == 0) {
+                return result;
+            }
+            if (!clause.prefix()) {
+                exact.add(postings.get(0));
+            }
+            if (size < driverSize) {
+                driver = postings;
+                driverSize = size;
+            }
+        }
+        if (driver.size() == 1) {
+            exact.remove(driver.get(0));
+        }
+        int[] positions = new int[exact.size()];
+        MergedIds ids = new MergedIds(driver);
+        while (result.size() < limit && ids.hasNext()) {
+            int id = ids.next();
+            if (!containedInAll(exact, positions, id)) {
+                continue;
+            }
+            String[] taskTerms = termsById.get(id);
+            if (taskTerms != null && matchesAll(clauses, taskTerms)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    // Сдвигает курсоры списков к первому id не меньше искомого: сначала шагами, удваивающимися
+    // до перелёта, затем бинарным поиском в последнем шаге
+    private static boolean containedInAll(List<Postings> lists, int[] positions, int id) {
+        for (int i = 0; i < positions.length; i++) {
+            Postings postings = lists.get(i);
+            int low = positions[i];
+            int step = 1;
+            while (low + step < postings.size && postings.ids[low + step] < id) {
+                low += step;
+                step <<= 1;
+            }
+            int position = Arrays.binarySearch(postings.ids, low, Math.min(low + step + 1, postings.size), id);
+            if (position < 0) {
+                positions[i] = -position - 1;
+                return false;
+            }
+            positions[i] = position;
+        }
+        return true;
+    }
+
+    private static boolean matchesAll(List<Clause> clauses, String[] taskTerms) {
+        for (Clause clause : clauses) {
+            if (!clause.matches(taskTerms)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Postings> postingsOf(Clause clause) {
+        if (!clause.prefix()) {
+            Postings postings = terms.get(clause.term());
+            return postings == null ? List.of() : List.of(postings);
+        }
+        NavigableMap<String, Postings> range = terms.subMap(clause.term(), true,
+                clause.term() + Character.MAX_VALUE, false);
+        return new ArrayList<>(range.values());
+    }
+
+    private static List<Clause> parse(String query) {
+        List<Clause> clauses = new ArrayList<>();
+        if (query == null) {
+            return clauses;
+        }
+        for (String word : query.trim().split("\\s+")) {
+            boolean prefix = word.endsWith("*");
+            String[] words = split(prefix ? word.substring(0, word.length() - 1) : word);
+            for (int i = 0; i < words.length; i++) {
+                clauses.add(new Clause(words[i], prefix && i == words.length - 1));
+            }
+        }
+        return clauses;
+    }
+
+    // Слова названия и описания в нижнем регистре, отсортированные и без повторов
+    static String[] tokenize(String name, String description) {
+        String[] words = split((name == null ? "" : name) + " " + (description == null ? "" : description));
+        Arrays.sort(words);
+        int distinct = 0;
+        for (int i = 0; i < words.length; i++) {
+            if (distinct == 0 || !words[i].equals(words[distinct - 1])) {
+                words[distinct++] = words[i];
+            }
+        }
+        return distinct == words.length ? words : Arrays.copyOf(words, distinct);
+    }
+
+    // Слово - непрерывная последовательность букв и цифр
+    private static String[] split(String text) {
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                word.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return words.toArray(new String[0]);
+    }
+
+    // Объединение списков по возрастанию id без повторов: слияние через двоичную кучу курсоров,
+    // которая строится за линейное время - префикс может покрывать тысячи слов
+    private static final class MergedIds {
+        private final Postings[] lists;
+        private final int[] positions;
+        private final int[] heap;  // номера списков, упорядоченные по текущему id
+        private int heapSize;
+
+        MergedIds(List<Postings> source) {
+            lists = source.toArray(new Postings[0]);
+            positions = new int[lists.length];
+            heap = new int[lists.length];
+            for (int i = 0; i < lists.length; i++) {
+                if (lists[i].size > 0) {
+                    heap[heapSize++] = i;
+                }
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        boolean hasNext() {
+            return heapSize > 0;
+        }
+
+        int next() {
+            int id = current(heap[0]);
+            while (heapSize > 0 && current(heap[0]) == id) {
+                int list = heap[0];
+                if (++positions[list] == lists[list].size) {
+                    heap[0] = heap[--heapSize];
+                }
+                if (heapSize > 0) {
+                    siftDown(0);
+                }
+            }
+            return id;
+        }
+
+        private int current(int list) {
+            return lists[list].ids[positions[list]];
+        }
+
+        private void siftDown(int index) {
+            int list = heap[index];
+            int id = current(list);
+            while (true) {
+                int child = index * 2 + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && current(heap[child + 1]) < current(heap[child])) {
+                    child++;
+                }
+                if (current(heap[child]) >= id) {
+                    break;
+                }
+                heap[index] = heap[child];
+                index = child;
+            }
+            heap[index] = list;
+        }
+    }
+}
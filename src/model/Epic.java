@@ -2,17 +2,38 @@ package model;
 
 import model.enums.TaskStatus;
 import model.enums.TaskType;
+import util.IntHashMap;
+import util.IntLinkedHashSet;
+import util.IntSet;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
 
 public class Epic extends Task {
-    protected ArrayList<Integer> subtaskIds = new ArrayList<>();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    protected IntLinkedHashSet subtaskIds = new IntLinkedHashSet();
     private final TaskType taskType = TaskType.EPIC;
     private LocalDateTime endTime;
+    // Агрегаты по подзадачам: вклад каждой подзадачи запоминается, чтобы при изменении или удалении
+    // вычесть именно его, даже если объект подзадачи уже изменён снаружи
+    private IntHashMap<Contribution> contributions = new IntHashMap<>();
+    private int[] statusCounts = new int[STATUSES.length];
+    private Duration totalDuration = Duration.ZERO;
+    private TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+
+    private record Contribution(TaskStatus status, Duration duration, LocalDateTime start, LocalDateTime end) {
+        Contribution(Subtask subtask) {
+            this(subtask.getStatus(), subtask.getDuration(), subtask.getStartTime(),
+                    subtask.getStartTime() != null && subtask.getDuration() != null ? subtask.getEndTime() : null);
+        }
+    }
 
     public Epic(String name, String description) {
         super(name, description);
@@ -22,57 +43,121 @@ public class Epic extends Task {
         super(id, name, description, Duration.ZERO, null, status);
     }
 
+    // Копия для истории: агрегаты не переносятся, для пересчёта копию нужно передать в recalculate
     public Epic(Epic epic) {
         super(epic);
-        this.subtaskIds = new ArrayList<>(epic.subtaskIds);
+        this.subtaskIds = new IntLinkedHashSet(epic.subtaskIds);
         this.duration = epic.duration;
         this.startTime = epic.startTime;
         this.endTime = epic.endTime;
     }
 
+    @Override
+    public Epic copy() {
+        return new Epic(this);
+    }
+
     public ArrayList<Integer> getSubtasksIds() {
-        return new ArrayList<>(subtaskIds);
+        ArrayList<Integer> ids = new ArrayList<>(subtaskIds.size());
+        for (PrimitiveIterator.OfInt it = subtaskIds.iterator(); it.hasNext(); ) {
+            ids.add(it.nextInt());
+        }
+        return ids;
+    }
+
+    // Id подзадач без копирования; изменять набор можно только через методы эпика
+    public IntSet getSubtaskIdSet() {
+        return subtaskIds.readOnly();
     }
 
     public void addSubtaskIds(Subtask newSubtask) {
-        if (!subtaskIds.contains(newSubtask.getId())) {
-            subtaskIds.add(newSubtask.getId());
+        applySubtask(newSubtask);
+    }
+
+    // Добавляет подзадачу или учитывает её изменения: статус и время эпика обновляются за O(log k)
+    public void applySubtask(Subtask subtask) {
+        Contribution contribution = new Contribution(subtask);
+        Contribution old = contributions.put(subtask.getId(), contribution);
+        if (old == null) {
+            subtaskIds.add(subtask.getId());
+        } else {
+            subtract(old);
+        }
+        add(contribution);
+        refresh();
+    }
+
+    public void removeSubtaskId(int subtaskId) {
+        Contribution old = contributions.remove(subtaskId);
+        if (old != null) {
+            subtaskIds.remove(subtaskId);
+            subtract(old);
+            refresh();
         }
     }
 
     public void deleteAllSubtasksIds() {
         subtaskIds.clear();
-        startTime = null;
-        endTime = null;
-        duration = Duration.ZERO;
+        contributions.clear();
+        statusCounts = new int[STATUSES.length];
+        totalDuration = Duration.ZERO;
+        startTimes.clear();
+        endTimes.clear();
+        refresh();
     }
 
-    public void updateTimes(List<Subtask> subtasks) {
-        if (subtasks.isEmpty()) {
-            startTime = null;
-            endTime = null;
-            duration = Duration.ZERO;
-            return;
+    // Полный пересчёт по списку подзадач, например после замены объекта эпика
+    public void recalculate(List<Subtask> subtasks) {
+        deleteAllSubtasksIds();
+        for (Subtask subtask : subtasks) {
+            Contribution contribution = new Contribution(subtask);
+            if (contributions.put(subtask.getId(), contribution) == null) {
+                subtaskIds.add(subtask.getId());
+                add(contribution);
+            }
         }
+        refresh();
+    }
 
-        startTime = subtasks.stream()
-                .map(Subtask::getStartTime)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(null);
-
-        endTime = subtasks.stream()
-                .map(Subtask::getEndTime)
-                .filter(Objects::nonNull)
-                .max(LocalDateTime::compareTo)
-                .orElse(null);
+    private void add(Contribution contribution) {
+        statusCounts[contribution.status().ordinal()]++;
+        if (contribution.duration() != null) {
+            totalDuration = totalDuration.plus(contribution.duration());
+        }
+        if (contribution.start() != null) {
+            startTimes.merge(contribution.start(), 1, Integer::sum);
+        }
+        if (contribution.end() != null) {
+            endTimes.merge(contribution.end(), 1, Integer::sum);
+        }
+    }
 
-        duration = subtasks.stream()
-                .map(Subtask::getDuration)
-                .filter(Objects::nonNull)
-                .reduce(Duration::plus)
-                .orElse(Duration.ZERO);
+    private void subtract(Contribution contribution) {
+        statusCounts[contribution.status().ordinal()]--;
+        if (contribution.duration() != null) {
+            totalDuration = totalDuration.minus(contribution.duration());
+        }
+        if (contribution.start() != null) {
+            startTimes.computeIfPresent(contribution.start(), (time, count) -> count == 1 ? null : count - 1);
+        }
+        if (contribution.end() != null) {
+            endTimes.computeIfPresent(contribution.end(), (time, count) -> count == 1 ? null : count - 1);
+        }
+    }
 
+    private void refresh() {
+        int count = contributions.size();
+        if (count == 0 || statusCounts[TaskStatus.NEW.ordinal()] == count) {
+            status = TaskStatus.NEW;
+        } else if (statusCounts[TaskStatus.DONE.ordinal()] == count) {
+            status = TaskStatus.DONE;
+        } else {
+            status = TaskStatus.IN_PROGRESS;
+        }
+        startTime = startTimes.isEmpty() ? null : startTimes.firstKey();
+        endTime = endTimes.isEmpty() ? null : endTimes.lastKey();
+        duration = totalDuration;
+        touch();
     }
 
     @Override
@@ -0,0 +1,120 @@
+package model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Потокобезопасная выдача id. Поток арендует у общего счётчика блок из blockSize подряд идущих id
+// и раздаёт их без обращения к общим данным. Счётчик только растёт, поэтому id не выдаётся повторно;
+// его значение (high-water mark) сохраняется вместе со снимком доски.
+public class IdAllocator {
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+
+    private final AtomicInteger counter;
+    private final int blockSize;
+    // Нижняя граница после advanceTo: id из ранее арендованных блоков ниже неё уже не выдаются
+    private final AtomicInteger floor = new AtomicInteger();
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+    // Арендованные блоки, в которых ещё могут быть невыданные id, по первому id блока. Аренда, claim
+    // и advanceTo идут под блокировкой this, выдача id из своего блока - без неё
+    private final TreeMap<Integer, Block> leased = new TreeMap<>();
+
+    // Id блока занимается одним атомарным битом: выдачей из блока или claim, но не обоими
+    private static class Block {
+        final int start;
+        final int end;
+        final AtomicLongArray taken;
+        int next;  // меняет только поток-владелец
+
+        Block() {
+            this(0, 0);
+        }
+
+        Block(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.next = start;
+            this.taken = new AtomicLongArray((end - start + 63) >>> 6);
+        }
+
+        boolean take(int id) {
+            int offset = id - start;
+            long bit = 1L << (offset & 63);
+            return (taken.getAndAccumulate(offset >>> 6, bit, (word, mask) -> word | mask) & bit) == 0;
+        }
+    }
+
+    public IdAllocator() {
+        this(1, DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdAllocator(int firstId, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока id должен быть положительным");
+        }
+        this.counter = new AtomicInteger(firstId);
+        this.blockSize = blockSize;
+    }
+
+    public int nextId() {
+        Block block = blocks.get();
+        while (true) {
+            if (block.next < floor.get()) {
+                block.next = Math.min(floor.get(), block.end);
+            }
+            if (block.next >= block.end) {
+                block = lease(block);
+                blocks.set(block);
+                continue;
+            }
+            int id = block.next++;
+            if (block.take(id)) {
+                return id;
+            }
+        }
+    }
+
+    private synchronized Block lease(Block exhausted) {
+        leased.remove(exhausted.start, exhausted);
+        int start = counter.getAndAdd(blockSize);
+        Block block = new Block(start, start + blockSize);
+        leased.put(start, block);
+        return block;
+    }
+
+    // Все выданные id меньше этого значения
+    public int getHighWaterMark() {
+        return counter.get();
+    }
+
+    // Гарантирует, что дальше будут выдаваться id не меньше nextId, в том числе из арендованных блоков.
+    // Нужен, когда id пришли из другого источника, например при загрузке снимка
+    public void advanceTo(int nextId) {
+        if (floor.get() >= nextId) {
+            return;
+        }
+        synchronized (this) {
+            floor.accumulateAndGet(nextId, Math::max);
+            counter.accumulateAndGet(nextId, Math::max);
+        }
+    }
+
+    // Учитывает id, пришедший не из этого генератора. Id выше high-water mark сдвигают счётчик,
+    // id внутри арендованного, но ещё не выданного блока занимаются в нём и пропускаются при выдаче
+    public void claim(int id) {
+        if (id < floor.get()) {
+            return;
+        }
+        synchronized (this) {
+            if (id >= counter.get()) {
+                advanceTo(id + 1);
+                return;
+            }
+            Map.Entry<Integer, Block> entry = leased.floorEntry(id);
+            if (entry != null && id < entry.getValue().end) {
+                entry.getValue().take(id);
+            }
+        }
+    }
+}
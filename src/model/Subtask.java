@@ -41,6 +41,11 @@ public class Subtask extends Task {
         return epicId;
     }
 
+    @Override
+    public Subtask copy() {
+        return new Subtask(this);
+    }
+
     @Override
     public TaskType getTaskType() {
         return taskType;
@@ -8,7 +8,9 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 public class Task {
-    private static int idCounter = 1;
+    // Id, который назначит менеджер при добавлении: new Task(Task.NO_ID, ...) нумеруется генератором доски
+    public static final int NO_ID = 0;
+    private static final IdAllocator defaultIdAllocator = new IdAllocator();
     protected int id;
     protected String name;
     protected String description;
@@ -16,16 +18,19 @@ public class Task {
     protected LocalDateTime startTime;
     protected TaskStatus status;
     private final TaskType taskType = TaskType.TASK;
+    // Растёт при каждом изменении, не участвует в equals и hashCode. Задачу меняет один поток,
+    // поэтому инкремент не атомарен; volatile делает новую версию видимой читателям из других потоков
+    private volatile int version;
 
     public Task(String name, String description) {
-        this.id = idCounter++;
+        this.id = defaultIdAllocator.nextId();
         this.name = name;
         this.description = description;
         this.status = TaskStatus.NEW;
     }
 
     public Task(String name, String description, Duration duration, LocalDateTime startTime) {
-        this.id = idCounter++;
+        this.id = defaultIdAllocator.nextId();
         this.name = name;
         this.description = description;
         this.status = TaskStatus.NEW;
@@ -68,6 +73,7 @@ public class Task {
 
     public void setDuration(Duration duration) {
         this.duration = duration;
+        version++;
     }
 
     public LocalDateTime getStartTime() {
@@ -76,6 +82,7 @@ public class Task {
 
     public void setStartTime(LocalDateTime startTime) {
         this.startTime = startTime;
+        version++;
     }
 
     public int getId() {
@@ -88,6 +95,7 @@ public class Task {
 
     public void setName(String name) {
         this.name = name;
+        version++;
     }
 
     public String getDescription() {
@@ -96,6 +104,7 @@ public class Task {
 
     public void setDescription(String description) {
         this.description = description;
+        version++;
     }
 
     public TaskStatus getStatus() {
@@ -108,10 +117,35 @@ public class Task {
 
     public void setStatus(TaskStatus status) {
         this.status = status;
+        version++;
     }
 
-    public static void setIdCounter(int newIdCounter) {
-        idCounter = newIdCounter;
+    public int getVersion() {
+        return version;
+    }
+
+    // Копия того же типа: менеджер хранит и отдаёт копии, чтобы изменения снаружи не попадали в доску
+    public Task copy() {
+        return new Task(this);
+    }
+
+    // Для наследников, меняющих поля напрямую
+    protected void touch() {
+        version++;
+    }
+
+    // Вызывается менеджером при добавлении задачи с NO_ID; id уже назначенной задачи не меняется
+    public void assignId(int id) {
+        if (this.id != NO_ID) {
+            throw new IllegalStateException("Задаче уже назначен id " + this.id + ".");
+        }
+        this.id = id;
+    }
+
+    // Общий генератор для задач, созданных без явного id. У менеджера свой генератор: id из общего
+    // он только учитывает, чтобы не выдать их повторно
+    public static IdAllocator getDefaultIdAllocator() {
+        return defaultIdAllocator;
     }
 
     @Override
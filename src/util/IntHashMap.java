@@ -0,0 +1,439 @@
+package util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// Словарь с ключами int без упаковки. Записи лежат в плотных массивах keys/values в порядке добавления
+// (как в LinkedHashMap), а таблица с открытой адресацией хранит ключ вместе с номером записи,
+// так что поиск читает одну ячейку таблицы и сразу значение.
+// Удалённая запись остаётся дыркой до следующего уплотнения. Значения null не допускаются.
+// Все три массива разбиты на куски по CHUNK элементов (у маленького словаря один кусок меньшего размера),
+// чтобы снимок делил их с владельцем, а изменение после снимка копировало только затронутые куски.
+public class IntHashMap<V> {
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+    private static final int MIN_CAPACITY = 8;
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK - 1;
+
+    private long[][] index;  // ключ в старших 32 битах, в младших номер записи + 1, EMPTY или DELETED
+    private int tableSize;   // число ячеек index, степень двойки
+    private int shift;       // 32 - log2(tableSize) для фибоначчиева хеширования
+    private int[][] keys;
+    private Object[][] values;
+    private int capacity;    // число ячеек keys/values
+    private int used;        // занятая часть keys/values вместе с дырками
+    private int size;
+    private int deleted;     // ячейки DELETED в index
+    private int modCount;
+    private boolean keysAscending = true;  // ключи добавлялись строго по возрастанию, keys отсортирован
+    // Куски, которые принадлежат только этому словарю и меняются на месте. null - после снимка
+    // общие даже внешние массивы кусков
+    private boolean[] indexOwned;
+    private boolean[] entriesOwned;
+    private Values valuesView;
+
+    public IntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntHashMap(int expectedSize) {
+        allocate(Math.max(expectedSize, MIN_CAPACITY));
+    }
+
+    private IntHashMap(IntHashMap<V> source) {
+        index = source.index;
+        tableSize = source.tableSize;
+        shift = source.shift;
+        keys = source.keys;
+        values = source.values;
+        capacity = source.capacity;
+        used = source.used;
+        size = source.size;
+        deleted = source.deleted;
+        keysAscending = source.keysAscending;
+    }
+
+    // Снимок за O(1): копия делит куски массивов с исходным словарём, а тот перед изменением копирует
+    // себе только изменяемый кусок (copy-on-write) и один раз после снимка - внешние массивы кусков
+    // размером n / CHUNK. Снимок предназначен только для чтения и дальше не меняется, поэтому его можно
+    // читать из других потоков, пока владелец продолжает писать
+    public IntHashMap<V> snapshot() {
+        IntHashMap<V> copy = new IntHashMap<>(this);
+        indexOwned = null;
+        entriesOwned = null;
+        return copy;
+    }
+
+    private void ensureChunksOwned() {
+        if (indexOwned == null) {
+            index = index.clone();
+            keys = keys.clone();
+            values = values.clone();
+            indexOwned = new boolean[index.length];
+            entriesOwned = new boolean[keys.length];
+        }
+    }
+
+    private long[] writableIndexChunk(int slot) {
+        ensureChunksOwned();
+        int chunk = slot >>> CHUNK_SHIFT;
+        if (!indexOwned[chunk]) {
+            index[chunk] = index[chunk].clone();
+            indexOwned[chunk] = true;
+        }
+        return index[chunk];
+    }
+
+    // Ключ и значение записи меняются вместе, поэтому их куски копируются парой
+    private void ensureEntriesOwned(int entry) {
+        ensureChunksOwned();
+        int chunk = entry >>> CHUNK_SHIFT;
+        if (!entriesOwned[chunk]) {
+            keys[chunk] = keys[chunk].clone();
+            values[chunk] = values[chunk].clone();
+            entriesOwned[chunk] = true;
+        }
+    }
+
+    private long cell(int slot) {
+        return index[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    private int keyAt(int entry) {
+        return keys[entry >>> CHUNK_SHIFT][entry & CHUNK_MASK];
+    }
+
+    private Object valueAt(int entry) {
+        return values[entry >>> CHUNK_SHIFT][entry & CHUNK_MASK];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean containsKey(int key) {
+        return findEntry(key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int entry = findEntry(key);
+        return entry >= 0 ? (V) valueAt(entry) : null;
+    }
+
+    // Новый ключ добавляется в конец порядка обхода, замена значения порядок не меняет
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        int entry = findEntry(key);
+        if (entry >= 0) {
+            ensureEntriesOwned(entry);
+            Object[] chunk = values[entry >>> CHUNK_SHIFT];
+            V old = (V) chunk[entry & CHUNK_MASK];
+            chunk[entry & CHUNK_MASK] = value;
+            return old;
+        }
+        if (used == capacity || (size + deleted + 1) * 2 > tableSize) {
+            // Если дырок мало, уплотнение почти ничего не даст - сразу растём
+            rebuild(used - size < capacity >> 2 ? used + 1 : size + 1);
+        }
+        if (used > 0 && key <= keyAt(used - 1)) {
+            keysAscending = false;
+        }
+        ensureEntriesOwned(used);
+        keys[used >>> CHUNK_SHIFT][used & CHUNK_MASK] = key;
+        values[used >>> CHUNK_SHIFT][used & CHUNK_MASK] = value;
+        used++;
+        insertIndex(key, used);
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int mask = tableSize - 1;
+        for (int slot = hash(key); ; slot = (slot + 1) & mask) {
+            long cell = cell(slot);
+            int entry = (int) cell;
+            if (entry == EMPTY) {
+                return null;
+            }
+            if (entry > 0 && (int) (cell >>> 32) == key) {
+                writableIndexChunk(slot)[slot & CHUNK_MASK] = DELETED;
+                ensureEntriesOwned(entry - 1);
+                Object[] chunk = values[(entry - 1) >>> CHUNK_SHIFT];
+                V old = (V) chunk[(entry - 1) & CHUNK_MASK];
+                chunk[(entry - 1) & CHUNK_MASK] = null;
+                deleted++;
+                size--;
+                modCount++;
+                if (entry == used) {
+                    used--;
+                }
+                return old;
+            }
+        }
+    }
+
+    public void clear() {
+        allocate(capacity);
+        used = 0;
+        size = 0;
+        deleted = 0;
+        modCount++;
+        keysAscending = true;
+    }
+
+    // Представление значений в порядке добавления
+    public Collection<V> values() {
+        if (valuesView == null) {
+            valuesView = new Values();
+        }
+        return valuesView;
+    }
+
+    // Ключи в порядке добавления, без упаковки в Integer
+    public PrimitiveIterator.OfInt keyIterator() {
+        return new PrimitiveIterator.OfInt() {
+            private final int expectedModCount = modCount;
+            private int position = skipHoles(0);
+
+            @Override
+            public boolean hasNext() {
+                return position < used;
+            }
+
+            @Override
+            public int nextInt() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (position >= used) {
+                    throw new NoSuchElementException();
+                }
+                int key = keyAt(position);
+                position = skipHoles(position + 1);
+                return key;
+            }
+        };
+    }
+
+    // Значения с ключом больше afterKey по возрастанию ключа. Если ключи добавлялись по возрастанию
+    // (обычный случай для id), начало находится бинарным поиском и обход идёт прямо по массивам;
+    // иначе подходящие ключи сначала копируются и сортируются
+    public Iterator<V> valuesAfter(int afterKey) {
+        if (!keysAscending) {
+            return sortedValuesAfter(afterKey);
+        }
+        int low = 0;
+        int high = used;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keyAt(middle) <= afterKey) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int from = low;
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int position = skipHoles(from);
+
+            @Override
+            public boolean hasNext() {
+                return position < used;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (position >= used) {
+                    throw new NoSuchElementException();
+                }
+                V value = (V) valueAt(position);
+                position = skipHoles(position + 1);
+                return value;
+            }
+        };
+    }
+
+    private Iterator<V> sortedValuesAfter(int afterKey) {
+        int[] sorted = new int[size];
+        int count = 0;
+        for (int i = 0; i < used; i++) {
+            if (valueAt(i) != null && keyAt(i) > afterKey) {
+                sorted[count++] = keyAt(i);
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+        int total = count;
+        return new Iterator<>() {
+            private final int expectedModCount = modCount;
+            private int position;
+
+            @Override
+            public boolean hasNext() {
+                return position < total;
+            }
+
+            @Override
+            public V next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (position >= total) {
+                    throw new NoSuchElementException();
+                }
+                return get(sorted[position++]);
+            }
+        };
+    }
+
+    private int skipHoles(int from) {
+        while (from < used && valueAt(from) == null) {
+            from++;
+        }
+        return from;
+    }
+
+    private int hash(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private int findEntry(int key) {
+        int mask = tableSize - 1;
+        for (int slot = hash(key); ; slot = (slot + 1) & mask) {
+            long cell = cell(slot);
+            int entry = (int) cell;
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if (entry > 0 && (int) (cell >>> 32) == key) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private void insertIndex(int key, int entry) {
+        int mask = tableSize - 1;
+        int slot = hash(key);
+        while ((int) cell(slot) > 0) {
+            slot = (slot + 1) & mask;
+        }
+        if ((int) cell(slot) == DELETED) {
+            deleted--;
+        }
+        writableIndexChunk(slot)[slot & CHUNK_MASK] = ((long) key << 32) | entry;
+    }
+
+    // Массив до CHUNK элементов - один кусок своего размера, больше - целые куски по CHUNK
+    private void allocate(int requested) {
+        tableSize = Integer.highestOneBit(Math.max(requested * 2 - 1, MIN_CAPACITY)) << 1;
+        shift = 32 - Integer.numberOfTrailingZeros(tableSize);
+        index = tableSize <= CHUNK ? new long[][]{new long[tableSize]} : new long[tableSize >>> CHUNK_SHIFT][CHUNK];
+        if (requested <= CHUNK) {
+            capacity = requested;
+            keys = new int[][]{new int[requested]};
+            values = new Object[][]{new Object[requested]};
+        } else {
+            int chunks = (requested + CHUNK_MASK) >>> CHUNK_SHIFT;
+            capacity = chunks << CHUNK_SHIFT;
+            keys = new int[chunks][CHUNK];
+            values = new Object[chunks][CHUNK];
+        }
+        indexOwned = new boolean[index.length];
+        entriesOwned = new boolean[keys.length];
+        Arrays.fill(indexOwned, true);
+        Arrays.fill(entriesOwned, true);
+    }
+
+    // Уплотняет записи, выкидывая дырки, в новые массивы и заново строит таблицу;
+    // при нехватке места растёт в 1.5 раза
+    private void rebuild(int required) {
+        int[][] oldKeys = keys;
+        Object[][] oldValues = values;
+        int oldUsed = used;
+        if (required > capacity || required * 2L > tableSize) {
+            allocate(Math.max(required, capacity + (capacity >> 1)));
+        } else {
+            allocate(capacity);
+        }
+        used = 0;
+        deleted = 0;
+        for (int i = 0; i < oldUsed; i++) {
+            Object value = oldValues[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+            if (value != null) {
+                int key = oldKeys[i >>> CHUNK_SHIFT][i & CHUNK_MASK];
+                keys[used >>> CHUNK_SHIFT][used & CHUNK_MASK] = key;
+                values[used >>> CHUNK_SHIFT][used & CHUNK_MASK] = value;
+                used++;
+                insertIndex(key, used);
+            }
+        }
+    }
+
+    private class Values extends AbstractCollection<V> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] result = new Object[size];
+            int count = 0;
+            for (int i = 0; i < used; i++) {
+                Object value = valueAt(i);
+                if (value != null) {
+                    result[count++] = value;
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private final int expectedModCount = modCount;
+                private int position = skipHoles(0);
+
+                @Override
+                public boolean hasNext() {
+                    return position < used;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public V next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (position >= used) {
+                        throw new NoSuchElementException();
+                    }
+                    V value = (V) valueAt(position);
+                    position = skipHoles(position + 1);
+                    return value;
+                }
+            };
+        }
+    }
+}
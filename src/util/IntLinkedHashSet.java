@@ -0,0 +1,137 @@
+package util;
+
+import java.util.PrimitiveIterator;
+
+// Множество int с порядком добавления (как LinkedHashSet<Integer>), но без упаковки:
+// add, remove и contains за O(1) поверх IntHashMap
+public class IntLinkedHashSet implements IntSet {
+    private final IntHashMap<Boolean> entries;
+    private IntSet readOnlyView;
+
+    public IntLinkedHashSet() {
+        entries = new IntHashMap<>();
+    }
+
+    public IntLinkedHashSet(IntSet other) {
+        entries = new IntHashMap<>(other.size());
+        for (PrimitiveIterator.OfInt it = other.iterator(); it.hasNext(); ) {
+            entries.put(it.nextInt(), Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public boolean contains(int value) {
+        return entries.containsKey(value);
+    }
+
+    public boolean add(int value) {
+        return entries.put(value, Boolean.TRUE) == null;
+    }
+
+    public boolean remove(int value) {
+        return entries.remove(value) != null;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return entries.keyIterator();
+    }
+
+    @Override
+    public int[] toArray() {
+        int[] result = new int[entries.size()];
+        int count = 0;
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            result[count++] = it.nextInt();
+        }
+        return result;
+    }
+
+    // Представление только для чтения, изменения множества в нём сразу видны
+    public IntSet readOnly() {
+        if (readOnlyView == null) {
+            readOnlyView = new IntSet() {
+                @Override
+                public int size() {
+                    return IntLinkedHashSet.this.size();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return IntLinkedHashSet.this.isEmpty();
+                }
+
+                @Override
+                public boolean contains(int value) {
+                    return IntLinkedHashSet.this.contains(value);
+                }
+
+                @Override
+                public PrimitiveIterator.OfInt iterator() {
+                    return IntLinkedHashSet.this.iterator();
+                }
+
+                @Override
+                public int[] toArray() {
+                    return IntLinkedHashSet.this.toArray();
+                }
+
+                @Override
+                public String toString() {
+                    return IntLinkedHashSet.this.toString();
+                }
+            };
+        }
+        return readOnlyView;
+    }
+
+    // Множества равны, если совпадают элементы и порядок, как было у списка id подзадач
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntLinkedHashSet other) || other.size() != size()) return false;
+        PrimitiveIterator.OfInt mine = iterator();
+        PrimitiveIterator.OfInt theirs = other.iterator();
+        while (mine.hasNext()) {
+            if (mine.nextInt() != theirs.nextInt()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            hash = 31 * hash + it.nextInt();
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (PrimitiveIterator.OfInt it = iterator(); it.hasNext(); ) {
+            sb.append(it.nextInt());
+            if (it.hasNext()) {
+                sb.append(", ");
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,16 @@
+package util;
+
+import java.util.PrimitiveIterator;
+
+// Множество int только для чтения: так наружу отдаётся содержимое без копирования
+public interface IntSet {
+    int size();
+
+    boolean isEmpty();
+
+    boolean contains(int value);
+
+    PrimitiveIterator.OfInt iterator();
+
+    int[] toArray();
+}
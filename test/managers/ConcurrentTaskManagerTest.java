@@ -0,0 +1,247 @@
+package managers;
+
+import app.Managers;
+import model.Epic;
+import model.Subtask;
+import model.Task;
+import model.enums.TaskStatus;
+import model.enums.TaskType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentTaskManagerTest {
+    private static final int THREADS = 8;
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    private TaskManager manager;
+
+    @BeforeEach
+    public void addManager() {
+        manager = Managers.getConcurrent();
+    }
+
+    @Test
+    public void shouldBehaveLikeInMemoryManager() {
+        Task task = manager.addTask(new Task("Task", "Description", Duration.ofMinutes(30), BASE));
+        Epic epic = manager.addEpic(new Epic("Epic", "Description"));
+        Subtask subtask = manager.addSubtask(new Subtask("Subtask", "Description",
+                Duration.ofMinutes(30), BASE.plusHours(1), epic.getId()));
+
+        assertThrows(IllegalArgumentException.class, () -> manager.addTask(
+                new Task("Overlap", "Description", Duration.ofMinutes(10), BASE.plusMinutes(10))));
+        assertEquals(List.of(task, subtask), manager.getPrioritizedTasks(), "Неверный порядок задач по времени");
+        assertEquals(List.of(subtask.getId()), manager.getSubtasksIdsOfEpic(epic));
+        assertEquals(BASE.plusMinutes(30), manager.findFreeSlot(Duration.ofMinutes(30), BASE, BASE.plusDays(1)));
+        assertEquals(BASE.plusMinutes(90), manager.findFreeSlot(Duration.ofMinutes(31), BASE, BASE.plusDays(1)));
+
+        manager.deleteSubtaskById(subtask.getId());
+        assertTrue(manager.getSubtasksIdsOfEpic(epic).isEmpty(), "Подзадача не удалена из эпика");
+        assertEquals(TaskStatus.NEW, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(task), manager.findOverlapping(BASE, BASE.plusDays(1)));
+    }
+
+    @Test
+    public void shouldStoreAndReturnCopies() {
+        Task task = manager.addTask(new Task("Task", "Description", Duration.ofMinutes(30), BASE));
+        Epic epic = manager.addEpic(new Epic("Epic", "Description"));
+
+        task.setStartTime(BASE.plusHours(5));
+        epic.setName("caller");
+        manager.getTaskById(task.getId()).setName("changed");
+        manager.getPrioritizedTasks().getFirst().setDuration(Duration.ofHours(10));
+        manager.getEpicById(epic.getId()).setStatus(TaskStatus.DONE);
+
+        Task stored = manager.getTaskById(task.getId());
+        assertEquals(BASE, stored.getStartTime(), "Менеджер не должен хранить переданный объект");
+        assertEquals("Task", stored.getName(), "Менеджер не должен отдавать хранимый объект");
+        assertEquals(Duration.ofMinutes(30), manager.getPrioritizedTasks().getFirst().getDuration());
+        assertEquals("Epic", manager.getEpicById(epic.getId()).getName());
+        assertEquals(TaskStatus.NEW, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(task.getId()), manager.getByTypeAndStatus(TaskType.TASK, TaskStatus.NEW).stream()
+                .map(Task::getId).toList());
+    }
+
+    @Test
+    public void shouldApplyBatchAgainstFinalSchedule() {
+        Task first = new Task("First", "Description", Duration.ofHours(1), BASE);
+        Task second = new Task("Second", "Description", Duration.ofHours(1), BASE.plusHours(1));
+        manager.applyBatch(new TaskBatch().add(first).add(second));
+
+        manager.applyBatch(new TaskBatch()
+                .update(new Task(first.getId(), "First", "Description", Duration.ofHours(1), BASE.plusHours(1),
+                        TaskStatus.NEW))
+                .update(new Task(second.getId(), "Second", "Description", Duration.ofHours(1), BASE,
+                        TaskStatus.NEW)));
+        assertEquals(List.of(second.getId(), first.getId()),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(new TaskBatch()
+                .delete(TaskType.TASK, first.getId())
+                .add(new Task("Third", "Description", Duration.ofMinutes(30), BASE.plusMinutes(30)))));
+        assertNotNull(manager.getTaskById(first.getId()), "Пакет с пересечением не должен применяться");
+    }
+
+    @Test
+    public void shouldNotScheduleOverlappingTasksFromParallelThreads() throws Exception {
+        Random random = new Random(42);
+        List<List<Task>> batches = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            List<Task> batch = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                LocalDateTime start = BASE.plusMinutes(15L * random.nextInt(400));
+                batch.add(new Task("Task", "Description", Duration.ofMinutes(15 + 15 * random.nextInt(4)), start));
+            }
+            batches.add(batch);
+        }
+
+        List<Integer> added = runInParallel(batch -> {
+            int count = 0;
+            for (Task task : batch) {
+                try {
+                    manager.addTask(task);
+                    count++;
+                } catch (IllegalArgumentException ignored) {
+                    // слот уже занят другой задачей
+                }
+            }
+            return count;
+        }, batches);
+
+        List<Task> prioritized = manager.getPrioritizedTasks();
+        assertEquals(added.stream().mapToInt(Integer::intValue).sum(), prioritized.size(),
+                "Число задач в расписании не совпадает с числом успешных добавлений");
+        for (int i = 1; i < prioritized.size(); i++) {
+            assertFalse(prioritized.get(i).getStartTime().isBefore(prioritized.get(i - 1).getEndTime()),
+                    "В расписание попали пересекающиеся задачи");
+        }
+    }
+
+    @Test
+    public void shouldKeepEpicStatusConsistentUnderParallelUpdates() throws Exception {
+        Epic epic = manager.addEpic(new Epic("Epic", "Description"));
+        List<List<Subtask>> batches = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            batches.add(new ArrayList<>());
+        }
+        for (int i = 0; i < 400; i++) {
+            Subtask subtask = manager.addSubtask(new Subtask("Subtask", "Description", Duration.ofMinutes(10),
+                    BASE.plusMinutes(10L * i), epic.getId()));
+            batches.get(i % THREADS).add(subtask);
+        }
+
+        runInParallel(batch -> {
+            for (Subtask subtask : batch) {
+                manager.updateSubtask(new Subtask(subtask.getId(), subtask.getName(), subtask.getDescription(),
+                        TaskStatus.DONE, subtask.getDuration(), subtask.getStartTime(), subtask.getEpicId()));
+                manager.getEpicById(epic.getId());
+            }
+            return batch.size();
+        }, batches);
+
+        Epic stored = manager.getEpicById(epic.getId());
+        assertEquals(TaskStatus.DONE, stored.getStatus(), "Статус эпика не пересчитан после параллельных изменений");
+        assertEquals(Duration.ofMinutes(4000), stored.getDuration());
+        assertEquals(400, manager.getSubtasksIdsOfEpic(stored).size());
+    }
+
+    @Test
+    public void shouldMoveSubtaskBetweenEpics() {
+        Epic from = manager.addEpic(new Epic("From", "Description"));
+        Epic to = manager.addEpic(new Epic("To", "Description"));
+        Subtask subtask = manager.addSubtask(new Subtask("Subtask", "Description", Duration.ofHours(1), BASE,
+                from.getId()));
+
+        manager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.DONE,
+                Duration.ofHours(1), BASE, to.getId()));
+        assertTrue(manager.getSubtasksIdsOfEpic(from).isEmpty(), "Подзадача осталась в прежнем эпике");
+        assertEquals(TaskStatus.NEW, manager.getEpicById(from.getId()).getStatus());
+        assertNull(manager.getEpicById(from.getId()).getStartTime());
+        assertEquals(List.of(subtask.getId()), manager.getSubtasksIdsOfEpic(to));
+        assertEquals(TaskStatus.DONE, manager.getEpicById(to.getId()).getStatus());
+
+        assertDoesNotThrow(() -> manager.updateSubtask(new Subtask(subtask.getId(), "Changed", "Description",
+                TaskStatus.NEW, to.getId() + 100)));
+        Subtask stored = manager.getSubtaskById(subtask.getId());
+        assertEquals("Subtask", stored.getName(), "Обновление с несуществующим эпиком не должно применяться");
+        assertEquals(to.getId(), stored.getEpicId());
+        assertEquals(List.of(subtask.getId()), manager.getSubtasksIdsOfEpic(to));
+    }
+
+    @Test
+    public void shouldKeepEpicsConsistentUnderParallelMoves() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            epics.add(manager.addEpic(new Epic("Epic" + i, "Description")));
+        }
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            subtasks.add(manager.addSubtask(new Subtask("Subtask", "Description", epics.get(i % 4).getId())));
+        }
+        List<Integer> seeds = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            seeds.add(t);
+        }
+
+        // Встречные переносы берут блокировки двух эпиков в разном порядке аргументов
+        runInParallel(seed -> {
+            Random random = new Random(seed);
+            for (int i = 0; i < 2000; i++) {
+                Subtask subtask = subtasks.get(random.nextInt(subtasks.size()));
+                manager.updateSubtask(new Subtask(subtask.getId(), "Subtask", "Description", TaskStatus.NEW,
+                        epics.get(random.nextInt(epics.size())).getId()));
+            }
+            return 0;
+        }, seeds);
+
+        int total = 0;
+        for (Epic epic : epics) {
+            for (int id : manager.getSubtasksIdsOfEpic(epic)) {
+                assertEquals(epic.getId(), manager.getSubtaskById(id).getEpicId(),
+                        "Подзадача числится в эпике, которому не принадлежит");
+                total++;
+            }
+        }
+        assertEquals(subtasks.size(), total, "Каждая подзадача должна числиться ровно в одном эпике");
+    }
+
+    private <T> List<Integer> runInParallel(Worker<T> worker, List<T> batches) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (T batch : batches) {
+                Callable<Integer> call = () -> {
+                    start.await();
+                    return worker.run(batch);
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+            List<Integer> results = new ArrayList<>();
+            for (Future<Integer> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Worker<T> {
+        int run(T batch);
+    }
+}
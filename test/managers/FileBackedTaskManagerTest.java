@@ -1,14 +1,18 @@
 package managers;
 
+import exceptions.ManagerSaveException;
 import model.Epic;
+import model.IdAllocator;
 import model.Subtask;
 import model.Task;
+import model.enums.TaskStatus;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -46,6 +50,7 @@ class FileBackedTaskManagerTest {
             manager.getAllTasks();
             manager.getEpicById(epic1.getId());
             manager.getSubtaskById(subtask1.getId());
+            manager.flush();
 
         } catch (IOException e) {
             fail("Не удалось создать временный файл для тестов");
@@ -87,4 +92,473 @@ class FileBackedTaskManagerTest {
         assertNull(loadedTask3.getStartTime());
         assertNull(loadedTask3.getDuration());
     }
+
+    @Test
+    void testReadsDoNotRewriteFileUntilFlush() throws IOException {
+        File lazyFile = File.createTempFile("lazy", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setHistoryPersistence(HistoryPersistence.ON_CLOSE);
+        FileBackedTaskManager lazyManager = new FileBackedTaskManager(lazyFile, settings);
+        Task task = new Task("Task", "Description");
+        lazyManager.addTask(task);
+        String savedContent = Files.readString(lazyFile.toPath());
+
+        lazyManager.getTaskById(task.getId());
+        lazyManager.getAllTasks();
+
+        assertEquals(savedContent, Files.readString(lazyFile.toPath()), "Просмотр не должен перезаписывать файл");
+        assertTrue(savedContent.endsWith("History \n"), "Сохранение не должно записывать задачи в историю");
+
+        lazyManager.close();
+        assertEquals(1, FileBackedTaskManager.loadFromFile(lazyFile).getHistory().size());
+        lazyFile.delete();
+    }
+
+    @Test
+    void testDebouncedHistoryIsWrittenWhenManagerIsIdle() throws Exception {
+        File idleFile = File.createTempFile("idle", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setHistoryPersistence(HistoryPersistence.DEBOUNCED);
+        settings.setHistoryFlushInterval(Duration.ofMillis(200));
+        // Атомарная запись, чтобы проверка не прочитала файл посреди записи таймером
+        settings.setAtomicSaves(true);
+        FileBackedTaskManager idle = new FileBackedTaskManager(idleFile, settings);
+        Task task = idle.addTask(new Task("Task", "Description"));
+        idle.getTaskById(task.getId());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<Task> history = FileBackedTaskManager.loadFromFile(idleFile, settings).getHistory();
+        while (history.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            history = FileBackedTaskManager.loadFromFile(idleFile, settings).getHistory();
+        }
+        assertEquals(List.of(task), history, "Просмотр должен попасть на диск без новых вызовов менеджера");
+
+        idle.close();
+        idleFile.delete();
+        new File(idleFile.getPath() + ".prev").delete();
+    }
+
+    @Test
+    void testLoadRecalculatesEpicsOnce() throws IOException {
+        File bulkFile = File.createTempFile("bulk", ".csv");
+        Files.writeString(bulkFile.toPath(), """
+                id,type,name,status,description,startTime,duration,epic
+                1001,SUBTASK,Subtask1,DONE,Description,2023-01-01T10:00,60,1000
+                1002,SUBTASK,Subtask2,NEW,Description,2023-01-01T12:00,30,1000
+                1000,EPIC,Epic,NEW,Description,,0,
+                History\s
+                """);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(bulkFile);
+        Epic epic = loadedManager.getEpicById(1000);
+
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(LocalDateTime.of(2023, 1, 1, 10, 0), epic.getStartTime());
+        assertEquals(LocalDateTime.of(2023, 1, 1, 12, 30), epic.getEndTime());
+        assertEquals(2, loadedManager.getPrioritizedTasks().size());
+        bulkFile.delete();
+    }
+
+    @Test
+    void testLoadRejectsOverlappingTasks() throws IOException {
+        File bulkFile = File.createTempFile("overlap", ".csv");
+        Files.writeString(bulkFile.toPath(), """
+                id,type,name,status,description,startTime,duration,epic
+                2001,TASK,Task1,NEW,Description,2023-01-01T10:00,60,
+                2002,TASK,Task2,NEW,Description,2023-01-01T10:30,60,
+                History\s
+                """);
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(bulkFile));
+        bulkFile.delete();
+    }
+
+    @Test
+    void testSpecialCharactersRoundTrip() throws IOException {
+        File quotedFile = File.createTempFile("quoted", ".csv");
+        FileBackedTaskManager quotedManager = new FileBackedTaskManager(quotedFile);
+        Task task = new Task("Купить молоко, хлеб", "Сказать \"спасибо\"\nи уйти", Duration.ofMinutes(45),
+                LocalDateTime.of(2023, 1, 1, 10, 0, 30));
+        quotedManager.addTask(task);
+
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setMemoryMapped(true);
+        for (FileBackedTaskManager loadedManager : List.of(FileBackedTaskManager.loadFromFile(quotedFile),
+                FileBackedTaskManager.loadFromFile(quotedFile, settings))) {
+            Task loadedTask = loadedManager.getTaskById(task.getId());
+            assertEquals(task, loadedTask, "Задача после загрузки должна совпадать с сохранённой");
+        }
+        quotedFile.delete();
+    }
+
+    @Test
+    void testBinarySnapshotRoundTrip() throws IOException {
+        File binaryFile = File.createTempFile("tasks", ".bin");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setSnapshotFormat(SnapshotFormat.BINARY);
+        FileBackedTaskManager binaryManager = new FileBackedTaskManager(binaryFile, settings);
+        Task task = new Task("Задача, с запятой", "Описание", Duration.ofMinutes(90),
+                LocalDateTime.of(2023, 1, 1, 10, 0));
+        Epic epic = new Epic("Epic", "Description");
+        binaryManager.addTask(task);
+        binaryManager.addEpic(epic);
+        binaryManager.addSubtask(new Subtask("Subtask", "Description", Duration.ofMinutes(30),
+                LocalDateTime.of(2023, 1, 2, 10, 0), epic.getId()));
+        binaryManager.getTaskById(task.getId());
+        binaryManager.close();
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(binaryFile);
+
+        assertEquals(task, loadedManager.getTaskById(task.getId()));
+        assertEquals(LocalDateTime.of(2023, 1, 2, 10, 30), loadedManager.getEpicById(epic.getId()).getEndTime());
+        assertEquals(1, loadedManager.getAllSubtasks().size());
+        assertEquals(3, loadedManager.getHistory().size());
+        binaryFile.delete();
+    }
+
+    @Test
+    void testBinarySnapshotStoresTimesFarFromEpoch() throws IOException {
+        File binaryFile = File.createTempFile("tasks", ".bin");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setSnapshotFormat(SnapshotFormat.BINARY);
+        FileBackedTaskManager binaryManager = new FileBackedTaskManager(binaryFile, settings);
+        Task beforeEpoch = binaryManager.addTask(new Task("Before", "Description", Duration.ofMinutes(10),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 30)));
+
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59),
+                FileBackedTaskManager.loadFromFile(binaryFile).getTaskById(beforeEpoch.getId()).getStartTime(),
+                "Секунды до 1970 года должны отбрасываться вниз, как и после");
+        assertThrows(ManagerSaveException.class, () -> binaryManager.addTask(new Task("Far", "Description",
+                Duration.ofMinutes(10), LocalDateTime.of(9000, 1, 1, 0, 0))));
+        binaryFile.delete();
+    }
+
+    @Test
+    void testConvertCsvToBinary() throws IOException {
+        File binaryFile = File.createTempFile("converted", ".bin");
+        FileBackedTaskManager.convertToBinary(file, binaryFile);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(binaryFile);
+
+        assertTrue(binaryFile.length() < file.length(), "Двоичный снимок должен быть компактнее CSV");
+        assertEquals(3, loadedManager.getAllTasks().size());
+        assertEquals(1, loadedManager.getAllEpics().size());
+        assertEquals(1, loadedManager.getAllSubtasks().size());
+        binaryFile.delete();
+    }
+
+    @Test
+    void testCorruptedBinarySnapshotIsRejected() throws IOException {
+        File binaryFile = File.createTempFile("corrupted", ".bin");
+        FileBackedTaskManager.convertToBinary(file, binaryFile);
+        byte[] bytes = Files.readAllBytes(binaryFile.toPath());
+        bytes[bytes.length / 2] ^= 0x7F;
+        Files.write(binaryFile.toPath(), bytes);
+
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(binaryFile));
+        binaryFile.delete();
+    }
+
+    @Test
+    void testJournalReplayAfterRestart() throws IOException {
+        File journalFile = File.createTempFile("journal", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setJournalEnabled(true);
+        try (FileBackedTaskManager journaled = new FileBackedTaskManager(journalFile, settings)) {
+            Task task = new Task("Task", "Description", Duration.ofHours(1),
+                    LocalDateTime.of(2023, 1, 1, 10, 0));
+            Epic epic = new Epic("Epic", "Description");
+            journaled.addTask(task);
+            journaled.addEpic(epic);
+            Subtask subtask = new Subtask("Subtask", "Description", epic.getId());
+            journaled.addSubtask(subtask);
+            journaled.updateTask(new Task(task.getId(), "Task updated", "Description", Duration.ofHours(1),
+                    LocalDateTime.of(2023, 1, 1, 12, 0), TaskStatus.DONE));
+            journaled.deleteSubtaskById(subtask.getId());
+        }
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(journalFile, settings);
+        List<Task> tasks = loadedManager.getAllTasks();
+
+        assertEquals(1, tasks.size());
+        assertEquals("Task updated", tasks.get(0).getName());
+        assertEquals(LocalDateTime.of(2023, 1, 1, 12, 0), tasks.get(0).getStartTime());
+        assertEquals(1, loadedManager.getAllEpics().size());
+        assertTrue(loadedManager.getAllSubtasks().isEmpty());
+
+        loadedManager.close();
+        journalFile.delete();
+        TaskJournal.journalFileFor(journalFile).delete();
+    }
+
+    @Test
+    void testJournalIsTruncatedAtCheckpoint() throws IOException {
+        File journalFile = File.createTempFile("checkpoint", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setJournalEnabled(true);
+        settings.setCheckpointInterval(2);
+        try (FileBackedTaskManager journaled = new FileBackedTaskManager(journalFile, settings)) {
+            journaled.addTask(new Task("Task1", "Description1"));
+            journaled.addTask(new Task("Task2", "Description2"));
+            journaled.addTask(new Task("Task3", "Description3"));
+        }
+
+        assertEquals(1, new TaskJournal(TaskJournal.journalFileFor(journalFile)).replay(record -> { }),
+                "После контрольной точки в журнале должна остаться одна запись");
+        assertEquals(3, FileBackedTaskManager.loadFromFile(journalFile, settings).getAllTasks().size());
+
+        journalFile.delete();
+        TaskJournal.journalFileFor(journalFile).delete();
+    }
+
+    @Test
+    void testIdHighWaterMarkIsPersisted() throws IOException {
+        for (SnapshotFormat format : SnapshotFormat.values()) {
+            File boardFile = File.createTempFile("board", ".dat");
+            PersistenceSettings settings = new PersistenceSettings();
+            settings.setSnapshotFormat(format);
+            IdAllocator allocator = new IdAllocator(1, 1);
+            FileBackedTaskManager board = new FileBackedTaskManager(boardFile, settings, allocator);
+            board.addTask(new Task(allocator.nextId(), "Task", "Description", TaskStatus.NEW));
+            allocator.nextId(); // id выдан, но задача так и не добавлена
+            board.addTask(new Task(allocator.nextId(), "Task", "Description", TaskStatus.NEW));
+            board.deleteTaskById(3);
+
+            IdAllocator restoredAllocator = new IdAllocator(1, 1);
+            FileBackedTaskManager.loadFromFile(boardFile, settings, restoredAllocator);
+
+            assertEquals(4, restoredAllocator.nextId(), "После загрузки нельзя повторно выдать id " + format);
+            boardFile.delete();
+        }
+    }
+
+    @Test
+    void testBoardsWithOwnAllocatorsDoNotShareIds() throws IOException {
+        File firstFile = File.createTempFile("first", ".csv");
+        File secondFile = File.createTempFile("second", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        FileBackedTaskManager first = new FileBackedTaskManager(firstFile, settings, new IdAllocator());
+        FileBackedTaskManager second = new FileBackedTaskManager(secondFile, settings, new IdAllocator());
+        for (int i = 0; i < 5; i++) {
+            first.addTask(new Task(first.getIdAllocator().nextId(), "First", "Description", TaskStatus.NEW));
+        }
+        second.addTask(new Task(second.getIdAllocator().nextId(), "Second", "Description", TaskStatus.NEW));
+
+        FileBackedTaskManager.loadFromFile(firstFile, settings, first.getIdAllocator());
+
+        assertEquals(1, second.getAllTasks().get(0).getId(), "Загрузка одной доски не должна менять id другой");
+        assertEquals(2, second.getIdAllocator().nextId());
+        firstFile.delete();
+        secondFile.delete();
+    }
+
+    @Test
+    void testHistorySectionIsBounded() throws IOException {
+        File boundedFile = File.createTempFile("bounded", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setHistoryCapacity(2);
+        settings.setHistoryPersistence(HistoryPersistence.IMMEDIATE);
+        FileBackedTaskManager bounded = new FileBackedTaskManager(boundedFile, settings);
+        for (int i = 0; i < 5; i++) {
+            bounded.addTask(new Task("Task" + i, "Description"));
+        }
+        bounded.getAllTasks();
+
+        List<String> lines = Files.readAllLines(boundedFile.toPath());
+        assertEquals(2, lines.size() - lines.indexOf("History ") - 1, "В файл должны попасть только 2 просмотра");
+        assertEquals(2, FileBackedTaskManager.loadFromFile(boundedFile, settings).getHistory().size());
+        boundedFile.delete();
+    }
+
+    @Test
+    void testBatchIsJournaledAsOneGroupAndReplayed() throws IOException {
+        File batchFile = File.createTempFile("batch", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setJournalEnabled(true);
+        LocalDateTime morning = LocalDateTime.of(2023, 2, 1, 9, 0);
+        LocalDateTime noon = LocalDateTime.of(2023, 2, 1, 12, 0);
+        Task first = new Task("First", "Description", Duration.ofHours(1), morning);
+        Task second = new Task("Second", "Description", Duration.ofHours(1), noon);
+        try (FileBackedTaskManager journaled = new FileBackedTaskManager(batchFile, settings)) {
+            journaled.applyBatch(new TaskBatch().add(first).add(second));
+            // Задачи меняются временем: по одной такие обновления отклонились бы как пересечение
+            journaled.applyBatch(new TaskBatch()
+                    .update(new Task(first.getId(), "First", "Description", Duration.ofHours(1), noon,
+                            TaskStatus.NEW))
+                    .update(new Task(second.getId(), "Second", "Description", Duration.ofHours(1), morning,
+                            TaskStatus.NEW)));
+        }
+
+        assertEquals(6, new TaskJournal(TaskJournal.journalFileFor(batchFile)).replay(record -> { }),
+                "Каждый пакет - заголовок группы и записи операций");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(batchFile, settings);
+        assertEquals(noon, loaded.getTaskById(first.getId()).getStartTime());
+        assertEquals(morning, loaded.getTaskById(second.getId()).getStartTime());
+
+        loaded.close();
+        batchFile.delete();
+        TaskJournal.journalFileFor(batchFile).delete();
+    }
+
+    @Test
+    void testAsyncWritesBecomeDurableOnAwait() throws IOException {
+        File asyncFile = File.createTempFile("async", ".csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setJournalEnabled(true);
+        settings.setCheckpointInterval(50);
+        settings.setAsyncWrites(true);
+        settings.setGroupCommitDelay(Duration.ofSeconds(10));
+        try (FileBackedTaskManager async = new FileBackedTaskManager(asyncFile, settings)) {
+            for (int i = 0; i < 120; i++) {
+                async.addTask(new Task("Task" + i, "Description"));
+            }
+            Epic epic = async.addEpic(new Epic("Epic", "Description"));
+            async.addSubtask(new Subtask("Subtask", "Description", epic.getId()));
+            async.awaitDurable();
+
+            PersistenceSettings loadSettings = new PersistenceSettings();
+            loadSettings.setJournalEnabled(true);
+            FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(asyncFile, loadSettings);
+            assertEquals(async.getTaskStore().size(), loaded.getAllTasks().size(),
+                    "После awaitDurable все изменения должны быть на диске");
+            assertEquals(1, loaded.getSubtasksOfEpic(epic.getId()).size());
+            loaded.close();
+        }
+        asyncFile.delete();
+        TaskJournal.journalFileFor(asyncFile).delete();
+    }
+
+    @Test
+    void testAsyncWriteFailureIsReported() throws IOException {
+        File directory = Files.createTempDirectory("async").toFile();
+        File asyncFile = new File(directory, "tasks.csv");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setAsyncWrites(true);
+        assertThrows(IllegalArgumentException.class, () -> new FileBackedTaskManager(asyncFile, settings),
+                "Фоновая запись без журнала должна быть запрещена");
+
+        settings.setJournalEnabled(true);
+        settings.setCheckpointInterval(1);
+        FileBackedTaskManager async = new FileBackedTaskManager(asyncFile, settings);
+        // Журнал остаётся открытым, а контрольная точка в удалённый каталог записаться не сможет
+        asyncFile.delete();
+        TaskJournal.journalFileFor(asyncFile).delete();
+        directory.delete();
+
+        Task task = async.addTask(new Task("Task", "Description"));
+        assertEquals(task, async.getTaskStore().iterator().next(), "Изменение применяется без ожидания записи");
+        assertThrows(ManagerSaveException.class, async::awaitDurable);
+        assertThrows(ManagerSaveException.class, async::close);
+        directory.delete();
+    }
+
+    @Test
+    void testAtomicSaveFallsBackToPreviousGeneration() throws IOException {
+        File atomicFile = File.createTempFile("atomic", ".csv");
+        File previous = new File(atomicFile.getPath() + ".prev");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setAtomicSaves(true);
+        FileBackedTaskManager atomic = new FileBackedTaskManager(atomicFile, settings);
+        Task first = atomic.addTask(new Task("First", "Description"));
+        atomic.addTask(new Task("Second", "Description"));
+
+        assertTrue(Files.readString(atomicFile.toPath()).contains("Checksum,"));
+        assertEquals(2, FileBackedTaskManager.loadFromFile(atomicFile, settings).getAllTasks().size());
+
+        byte[] content = Files.readAllBytes(atomicFile.toPath());
+        content[content.length / 2] ^= 1;
+        Files.write(atomicFile.toPath(), content);
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(atomicFile, settings);
+        assertEquals(List.of(first), restored.getAllTasks(), "При повреждении снимка загружается предыдущее поколение");
+
+        Files.delete(atomicFile.toPath());
+        assertNotNull(FileBackedTaskManager.loadFromFile(atomicFile, settings).getTaskById(first.getId()),
+                "Без снимка на месте загружается предыдущее поколение");
+        previous.delete();
+    }
+
+    @Test
+    void testTruncatedAtomicSnapshotFallsBackToPreviousGeneration() throws IOException {
+        File atomicFile = File.createTempFile("truncated", ".csv");
+        File previous = new File(atomicFile.getPath() + ".prev");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setAtomicSaves(true);
+        FileBackedTaskManager atomic = new FileBackedTaskManager(atomicFile, settings);
+        Task first = atomic.addTask(new Task("First", "Description"));
+        atomic.addTask(new Task("Second", "Description"));
+
+        // Обрезаем снимок по границе строки после NextId: оставшийся CSV разбирается без ошибок
+        List<String> truncated = Files.readAllLines(atomicFile.toPath()).subList(0, 2);
+        Files.write(atomicFile.toPath(), truncated);
+        FileBackedTaskManager restored = FileBackedTaskManager.loadFromFile(atomicFile, settings);
+        assertEquals(List.of(first), restored.getAllTasks(), "Снимок без контрольной суммы не должен приниматься");
+
+        previous.delete();
+        Files.write(atomicFile.toPath(), truncated);
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(atomicFile, settings),
+                "Без предыдущего поколения обрезанный снимок - ошибка");
+
+        PersistenceSettings plain = new PersistenceSettings();
+        assertTrue(FileBackedTaskManager.loadFromFile(atomicFile, plain).getAllTasks().isEmpty(),
+                "Вне атомарного режима снимок без контрольной суммы принимается");
+        atomicFile.delete();
+    }
+
+    @Test
+    void testCorruptedSnapshotWithJournalIsNotReplacedByPreviousGeneration() throws IOException {
+        File atomicFile = File.createTempFile("atomic", ".csv");
+        File previous = new File(atomicFile.getPath() + ".prev");
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setAtomicSaves(true);
+        settings.setJournalEnabled(true);
+        try (FileBackedTaskManager atomic = new FileBackedTaskManager(atomicFile, settings)) {
+            atomic.addTask(new Task("First", "Description"));
+            atomic.save();
+            atomic.addTask(new Task("Second", "Description"));
+            atomic.save();
+        }
+        assertTrue(previous.exists());
+
+        byte[] content = Files.readAllBytes(atomicFile.toPath());
+        content[content.length / 2] ^= 1;
+        Files.write(atomicFile.toPath(), content);
+        assertThrows(ManagerSaveException.class, () -> FileBackedTaskManager.loadFromFile(atomicFile, settings),
+                "Журнал уже очищен, предыдущее поколение потеряло бы вторую задачу");
+
+        atomicFile.delete();
+        previous.delete();
+        TaskJournal.journalFileFor(atomicFile).delete();
+    }
+
+    @Test
+    void testBackgroundCompactionKeepsJournalBounded() throws IOException {
+        File compactedFile = File.createTempFile("compacted", ".csv");
+        File journalFile = TaskJournal.journalFileFor(compactedFile);
+        PersistenceSettings settings = new PersistenceSettings();
+        settings.setJournalEnabled(true);
+        settings.setBackgroundCompaction(true);
+        settings.setCheckpointInterval(10);
+        Task task = new Task("Task", "Description");
+        try (FileBackedTaskManager compacted = new FileBackedTaskManager(compactedFile, settings)) {
+            compacted.addTask(task);
+            for (int i = 0; i < 95; i++) {
+                compacted.updateTask(new Task(task.getId(), "Task " + i, "Description", TaskStatus.IN_PROGRESS));
+            }
+            compacted.awaitDurable();
+            assertFalse(new File(journalFile.getPath() + ".9").exists(), "Сегменты, вошедшие в снимок, удаляются");
+            assertTrue(journalFile.length() < 1024, "Журнал не растёт с числом изменений");
+        }
+
+        // Сегмент, не удалённый до сбоя, уже отражён в снимке и повторно не применяется
+        Files.writeString(new File(journalFile.getPath() + ".1").toPath(), "D,TASK," + task.getId() + "\n");
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(compactedFile, settings);
+        assertEquals("Task 94", loaded.getTaskById(task.getId()).getName());
+        assertFalse(new File(journalFile.getPath() + ".1").exists());
+
+        loaded.close();
+        compactedFile.delete();
+        journalFile.delete();
+        new File(compactedFile.getPath() + ".prev").delete();
+    }
 }
@@ -0,0 +1,37 @@
+package managers;
+
+import exceptions.ManagerSaveException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitWriterTest {
+
+    @Test
+    public void flushReportsLostChangesUntilCheckpoint() {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        try (GroupCommitWriter writer = new GroupCommitWriter("writer-test", records -> {
+            if (failing.get()) {
+                throw new ManagerSaveException("Диск недоступен.");
+            }
+        }, 1, Duration.ZERO, error -> { })) {
+            writer.submitRecords(new byte[]{1});
+            CompletionException first = assertThrows(CompletionException.class, () -> writer.flush().join());
+            assertInstanceOf(ManagerSaveException.class, first.getCause());
+            assertThrows(CompletionException.class, () -> writer.flush().join(),
+                    "Записанная с ошибкой группа не должна считаться долговечной");
+
+            failing.set(false);
+            writer.submitRecords(new byte[]{2});
+            assertThrows(CompletionException.class, () -> writer.flush().join(),
+                    "Следующая группа не восстанавливает потерянные записи");
+
+            writer.submitCheckpoint(() -> { });
+            assertDoesNotThrow(() -> writer.flush().join(), "Контрольная точка покрывает потерянные записи");
+        }
+    }
+}
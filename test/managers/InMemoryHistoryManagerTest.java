@@ -8,7 +8,12 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 class InMemoryHistoryManagerTest {
@@ -224,4 +229,76 @@ class InMemoryHistoryManagerTest {
         manager.deleteSubtaskById(subtask1.getId());
         assertEquals(1, manager.getHistory().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void boundedHistoryEvictsOldestView() {
+        TaskManager boundedManager = new InMemoryTaskManager(Managers.getDefaultHistory(2));
+        Task task1 = boundedManager.addTask(new Task("Task1", "Task1"));
+        Task task2 = boundedManager.addTask(new Task("Task2", "Task2"));
+        Task task3 = boundedManager.addTask(new Task("Task3", "Task3"));
+
+        boundedManager.getTaskById(task1.getId());
+        boundedManager.getTaskById(task2.getId());
+        boundedManager.getTaskById(task1.getId());
+        boundedManager.getTaskById(task3.getId());
+
+        List<Task> history = boundedManager.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(task1.getId(), history.get(0).getId(), "Повторный просмотр должен переносить задачу в конец");
+        assertEquals(task3.getId(), history.get(1).getId());
+    }
+
+    @Test
+    public void boundedHistoryKeepsTailOfGetAll() {
+        TaskManager boundedManager = new InMemoryTaskManager(Managers.getDefaultHistory(3));
+        Epic epic = boundedManager.addEpic(new Epic("epic1", "epic1"));
+        boundedManager.getEpicById(epic.getId());
+        for (int i = 0; i < 10; i++) {
+            boundedManager.addTask(new Task("Task" + i, "Task" + i));
+        }
+
+        boundedManager.getAllTasks();
+
+        List<Task> history = boundedManager.getHistory();
+        assertEquals(3, history.size());
+        assertEquals(List.of("Task7", "Task8", "Task9"), history.stream().map(Task::getName).toList());
+    }
+
+    @Test
+    public void historyCapacityMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> Managers.getDefaultHistory(0));
+    }
+
+    @Test
+    public void repeatedViewOfUnchangedTaskReusesSnapshot() {
+        Task task1 = manager.addTask(new Task("Task1", "Task1"));
+        Task task2 = manager.addTask(new Task("Task2", "Task2"));
+        manager.getTaskById(task1.getId());
+        Task snapshot = manager.getHistory().getFirst();
+
+        manager.getTaskById(task2.getId());
+        manager.getTaskById(task1.getId());
+
+        assertSame(snapshot, manager.getHistory().getLast(), "Неизменённая задача не должна копироваться заново");
+
+        task1.setDescription("Task1New");
+        manager.updateTask(task1);
+        manager.getTaskById(task1.getId());
+
+        Task refreshed = manager.getHistory().getLast();
+        assertNotSame(snapshot, refreshed);
+        assertEquals("Task1New", refreshed.getDescription());
+        assertEquals("Task1", snapshot.getDescription(), "Старый снимок не должен меняться");
+    }
+
+    @Test
+    public void epicSnapshotIsRefreshedWhenSubtaskAdded() {
+        Epic epic1 = manager.addEpic(new Epic("epic1", "epic1"));
+        manager.getEpicById(epic1.getId());
+        manager.addSubtask(new Subtask("Epic1Subtask", "Subtask1", epic1.getId()));
+        manager.getEpicById(epic1.getId());
+
+        assertEquals(1, ((Epic) manager.getHistory().getFirst()).getSubtasksIds().size(),
+                "Снимок эпика должен учитывать новую подзадачу");
+    }
+}
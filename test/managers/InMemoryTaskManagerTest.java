@@ -5,6 +5,7 @@ import model.Epic;
 import model.Subtask;
 import model.Task;
 import model.enums.TaskStatus;
+import model.enums.TaskType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -23,6 +24,10 @@ class InMemoryTaskManagerTest {
         manager = Managers.getDefault();
     }
 
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
     @Test
     public void checkThatAppAddTaskAndGiveById() {
         Task task1 = new Task("Op1", "Op1");
@@ -169,7 +174,8 @@ class InMemoryTaskManagerTest {
         manager.addSubtask(subtask2);
 
         LocalDateTime expectedEndTime = LocalDateTime.of(2023, 1, 1, 14, 0);
-        assertEquals(expectedEndTime, epic.getEndTime(), "Время завершения эпика неверно рассчитано");
+        assertEquals(expectedEndTime, manager.getEpicById(epic.getId()).getEndTime(),
+                "Время завершения эпика неверно рассчитано");
     }
 
     @Test
@@ -196,10 +202,12 @@ class InMemoryTaskManagerTest {
 
         subtask1.setStatus(TaskStatus.DONE);
         subtask2.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask1);
+        manager.updateSubtask(subtask2);
 
         manager.updateEpic(epic);
 
-        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика должен быть DONE");
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic.getId()).getStatus(), "Статус эпика должен быть DONE");
     }
 
     @Test
@@ -250,4 +258,345 @@ class InMemoryTaskManagerTest {
         assertEquals(TaskStatus.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus(),
                 "Статус эпика должен быть IN_PROGRESS, если все подзадачи имеют статус IN_PROGRESS");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldFindOverlappingTasks() {
+        Task task1 = new Task("Task1", "Description1", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 9, 0));
+        Task task2 = new Task("Task2", "Description2", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 11, 0));
+        Task task3 = new Task("Task3", "Description3", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 13, 0));
+        manager.addTask(task1);
+        manager.addTask(task2);
+        manager.addTask(task3);
+
+        List<Task> overlapping = manager.findOverlapping(LocalDateTime.of(2023, 1, 1, 9, 30),
+                LocalDateTime.of(2023, 1, 1, 11, 30));
+
+        assertEquals(List.of(task1, task2), overlapping);
+        assertTrue(manager.findOverlapping(LocalDateTime.of(2023, 1, 1, 10, 0),
+                LocalDateTime.of(2023, 1, 1, 11, 0)).isEmpty(), "Смежные интервалы не пересекаются");
+    }
+
+    @Test
+    public void shouldAllowTimeSlotAfterDeletingTask() {
+        Epic epic = new Epic("Epic", "Description");
+        manager.addEpic(epic);
+        Subtask subtask = new Subtask("Subtask", "Description", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 10, 0), epic.getId());
+        manager.addSubtask(subtask);
+
+        manager.deleteSubtaskById(subtask.getId());
+        Task task = new Task("Task", "Description", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 10, 30));
+        manager.addTask(task);
+        manager.deleteAllTasks();
+
+        assertTrue(manager.findOverlapping(LocalDateTime.of(2023, 1, 1, 0, 0),
+                LocalDateTime.of(2023, 1, 2, 0, 0)).isEmpty());
+    }
+
+    @Test
+    public void shouldKeepTaskScheduledWhenUpdateOverlaps() {
+        Task task1 = new Task("Task1", "Description1", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 9, 0));
+        Task task2 = new Task("Task2", "Description2", Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 11, 0));
+        manager.addTask(task1);
+        manager.addTask(task2);
+
+        Task moved = new Task(task2.getId(), task2.getName(), task2.getDescription(), Duration.ofHours(1),
+                LocalDateTime.of(2023, 1, 1, 9, 30), task2.getStatus());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.updateTask(moved));
+        assertEquals(List.of(task1, task2), manager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void updateSubtaskMovesItToAnotherEpic() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Epic from = manager.addEpic(new Epic("from", "from"));
+        Epic to = manager.addEpic(new Epic("to", "to"));
+        Subtask subtask = manager.addSubtask(new Subtask("s", "s", Duration.ofHours(1), start, from.getId()));
+
+        manager.updateSubtask(new Subtask(subtask.getId(), "s", "s", TaskStatus.DONE, Duration.ofHours(1), start,
+                to.getId()));
+
+        Epic oldEpic = manager.getEpicById(from.getId());
+        assertTrue(manager.getSubtasksIdsOfEpic(oldEpic).isEmpty(), "Подзадача осталась в прежнем эпике");
+        assertEquals(TaskStatus.NEW, oldEpic.getStatus());
+        assertNull(oldEpic.getStartTime(), "Время подзадачи осталось в прежнем эпике");
+        Epic newEpic = manager.getEpicById(to.getId());
+        assertEquals(List.of(subtask.getId()), manager.getSubtasksIdsOfEpic(newEpic));
+        assertEquals(TaskStatus.DONE, newEpic.getStatus());
+        assertEquals(start, newEpic.getStartTime());
+        assertEquals(List.of(to.getId()), ids(manager.getByTypeAndStatus(TaskType.EPIC, TaskStatus.DONE)));
+        assertEquals(List.of(from.getId()), ids(manager.getByTypeAndStatus(TaskType.EPIC, TaskStatus.NEW)));
+    }
+
+    @Test
+    public void updateSubtaskWithMissingEpicIsIgnored() {
+        Epic epic = manager.addEpic(new Epic("e", "e"));
+        Subtask subtask = manager.addSubtask(new Subtask("s", "s", epic.getId()));
+
+        assertDoesNotThrow(() -> manager.updateSubtask(new Subtask(subtask.getId(), "changed", "changed",
+                TaskStatus.DONE, epic.getId() + 100)));
+
+        Subtask stored = manager.getSubtaskById(subtask.getId());
+        assertEquals("s", stored.getName(), "Обновление с несуществующим эпиком не должно применяться");
+        assertEquals(epic.getId(), stored.getEpicId());
+        assertEquals(List.of(subtask.getId()), manager.getSubtasksIdsOfEpic(epic));
+        assertEquals(TaskStatus.NEW, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    public void pagesFollowIdCursorAndSkipHistory() {
+        for (int i = 0; i < 7; i++) {
+            manager.addTask(new Task(100 + i, "t" + i, "t" + i,
+                    i % 2 == 0 ? TaskStatus.NEW : TaskStatus.DONE));
+        }
+        // Задача с меньшим id, добавленная последней, всё равно идёт по порядку id
+        manager.addTask(new Task(50, "t", "t", TaskStatus.NEW));
+
+        TaskPage<Task> first = manager.getTasksPage(TaskPage.FIRST, 3, null);
+        assertEquals(List.of(50, 100, 101), first.items().stream().map(Task::getId).toList());
+        assertTrue(first.hasMore());
+
+        TaskPage<Task> second = manager.getTasksPage(first.nextCursor(), 3,
+                task -> task.getStatus() == TaskStatus.NEW);
+        assertEquals(List.of(102, 104, 106), second.items().stream().map(Task::getId).toList());
+        assertFalse(second.hasMore(), "Подходящих задач больше нет");
+
+        assertEquals(8, manager.streamTasks().count());
+        assertTrue(manager.getHistory().isEmpty(), "Постраничный обход не должен попадать в историю");
+        assertThrows(IllegalArgumentException.class, () -> manager.getTasksPage(TaskPage.FIRST, 0, null));
+    }
+
+    @Test
+    public void statusIndexFollowsAddUpdateAndDelete() {
+        Task task = manager.addTask(new Task("t", "t"));
+        Epic epic = manager.addEpic(new Epic("e", "e"));
+        Subtask first = manager.addSubtask(new Subtask("s1", "s1", epic.getId()));
+        Subtask second = manager.addSubtask(new Subtask("s2", "s2", epic.getId()));
+
+        assertEquals(4, manager.getByStatus(TaskStatus.NEW).size());
+
+        Subtask done = new Subtask(first.getId(), "s1", "s1", TaskStatus.DONE, epic.getId());
+        manager.updateSubtask(done);
+        assertEquals(List.of(done), manager.getByTypeAndStatus(TaskType.SUBTASK, TaskStatus.DONE));
+        assertEquals(List.of(epic.getId()), ids(manager.getByTypeAndStatus(TaskType.EPIC, TaskStatus.IN_PROGRESS)),
+                "Индекс должен следовать за пересчитанным статусом эпика");
+
+        manager.deleteSubtaskById(second.getId());
+        assertEquals(List.of(epic.getId()), ids(manager.getByTypeAndStatus(TaskType.EPIC, TaskStatus.DONE)));
+        assertEquals(List.of(done), manager.getSubtasksOfEpic(epic.getId()));
+
+        manager.deleteTaskById(task.getId());
+        assertTrue(manager.getByTypeAndStatus(TaskType.TASK, TaskStatus.NEW).isEmpty());
+        assertTrue(manager.getHistory().isEmpty(), "Запросы по индексам не должны попадать в историю");
+    }
+
+    @Test
+    public void findFreeSlotSkipsBusyIntervals() {
+        LocalDateTime day = LocalDateTime.of(2025, 3, 1, 0, 0);
+        manager.addTask(new Task("a", "a", Duration.ofHours(1), day.withHour(10)));
+        manager.addTask(new Task("b", "b", Duration.ofMinutes(30), day.withHour(11).withMinute(30)));
+
+        assertEquals(day.withHour(11), manager.findFreeSlot(Duration.ofMinutes(30), day.withHour(9).withMinute(45),
+                day.withHour(13)));
+        assertEquals(day.withHour(12), manager.findFreeSlot(Duration.ofMinutes(45), day.withHour(9).withMinute(45),
+                day.withHour(13)));
+        assertNull(manager.findFreeSlot(Duration.ofHours(2), day.withHour(9), day.withHour(13)),
+                "В окне нет места для двух часов");
+
+        List<LocalDateTime> starts = manager.findFreeSlots(
+                List.of(Duration.ofMinutes(30), Duration.ofMinutes(30), Duration.ofMinutes(45)),
+                day.withHour(9), day.withHour(13));
+        assertEquals(List.of(day.withHour(9), day.withHour(9).withMinute(30), day.withHour(12)), starts,
+                "Каждый интервал пакета не должен пересекаться с уже размещёнными");
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.findFreeSlot(Duration.ZERO, day.withHour(9), day.withHour(13)));
+    }
+
+    @Test
+    public void prioritizedRangeQueriesReturnOnlyRequestedSlice() {
+        LocalDateTime day = LocalDateTime.of(2025, 4, 1, 0, 0);
+        Task morning = manager.addTask(new Task("m", "m", Duration.ofMinutes(30), day.withHour(9)));
+        Task noon = manager.addTask(new Task("n", "n", Duration.ofMinutes(30), day.withHour(12)));
+        Task evening = manager.addTask(new Task("e", "e", Duration.ofMinutes(30), day.withHour(18)));
+        manager.addTask(new Task("next", "next", Duration.ofMinutes(30), day.plusDays(1).withHour(9)));
+
+        assertEquals(List.of(morning, noon, evening), manager.getPrioritizedBetween(day, day.plusDays(1)));
+        assertEquals(List.of(noon), manager.getPrioritizedBetween(day.withHour(12), day.withHour(18)),
+                "Правая граница не входит в интервал");
+        assertEquals(List.of(noon, evening), manager.getNextN(day.withHour(12), 2));
+        assertTrue(manager.getNextN(day, 0).isEmpty());
+    }
+
+    @Test
+    public void batchIsAppliedAllOrNothing() {
+        LocalDateTime day = LocalDateTime.of(2025, 5, 1, 0, 0);
+        Epic epic = new Epic("e", "e");
+        Subtask first = new Subtask("s1", "s1", Duration.ofHours(1), day.withHour(9), epic.getId());
+        Subtask second = new Subtask("s2", "s2", Duration.ofHours(1), day.withHour(10), epic.getId());
+        manager.applyBatch(new TaskBatch().add(epic).add(first).add(second));
+
+        assertEquals(List.of(first, second), manager.getSubtasksOfEpic(epic.getId()));
+        assertEquals(day.withHour(11), manager.getEpicById(epic.getId()).getEndTime());
+
+        Task task = new Task("t", "t", Duration.ofHours(1), day.withHour(12));
+        TaskBatch overlapping = new TaskBatch()
+                .add(task)
+                .delete(TaskType.SUBTASK, first.getId())
+                .update(new Subtask(second.getId(), "s2", "s2", TaskStatus.DONE, Duration.ofHours(2),
+                        day.withHour(11), epic.getId()));
+        assertThrows(IllegalArgumentException.class, () -> manager.applyBatch(overlapping));
+        assertNull(manager.getTaskById(task.getId()), "При ошибке пакет не должен применяться частично");
+        assertEquals(2, manager.getSubtasksOfEpic(epic.getId()).size());
+        assertEquals(TaskStatus.NEW, manager.getEpicById(epic.getId()).getStatus());
+
+        manager.applyBatch(new TaskBatch()
+                .update(new Subtask(second.getId(), "s2", "s2", TaskStatus.DONE, Duration.ofHours(1),
+                        day.withHour(9), epic.getId()))
+                .delete(TaskType.SUBTASK, first.getId()));
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic.getId()).getStatus(),
+                "Подзадача может занять время удаляемой в том же пакете");
+        assertEquals(List.of(manager.getSubtaskById(second.getId())), manager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void snapshotKeepsStateAtTheMomentItWasTaken() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        LocalDateTime day = LocalDateTime.of(2025, 6, 1, 0, 0);
+        Task task = manager.addTask(new Task("t", "t", Duration.ofHours(1), day.withHour(12)));
+        Epic epic = manager.addEpic(new Epic("e", "e"));
+        Subtask subtask = manager.addSubtask(new Subtask("s", "s", Duration.ofHours(1), day.withHour(9),
+                epic.getId()));
+
+        TaskManagerSnapshot snapshot = manager.snapshot();
+        manager.updateSubtask(new Subtask(subtask.getId(), "s", "s", TaskStatus.DONE, Duration.ofHours(1),
+                day.withHour(15), epic.getId()));
+        manager.deleteTaskById(task.getId());
+        Task added = manager.addTask(new Task("a", "a", Duration.ofHours(1), day.withHour(8)));
+
+        assertEquals(List.of(subtask, task), snapshot.getPrioritizedTasks());
+        assertNull(snapshot.getTaskById(added.getId()));
+        assertEquals(TaskStatus.NEW, snapshot.getEpicById(epic.getId()).getStatus(),
+                "Эпик в снимке считается по подзадачам снимка");
+        assertEquals(day.withHour(10), snapshot.getEpicById(epic.getId()).getEndTime());
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epic.getId()).getStatus());
+        assertEquals(List.of(task), snapshot.findOverlapping(day.withHour(12), day.withHour(13)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.deleteAllTasks());
+    }
+
+    @Test
+    public void snapshotIgnoresInPlaceChangesMadeAfterIt() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task task = manager.addTask(new Task("t", "t"));
+        Epic epic = manager.addEpic(new Epic("e", "e"));
+        Subtask subtask = manager.addSubtask(new Subtask("s", "s", epic.getId()));
+
+        TaskManagerSnapshot snapshot = manager.snapshot();
+        task.setStatus(TaskStatus.DONE);
+        task.setName("renamed");
+        manager.updateTask(task);
+        subtask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+
+        assertEquals(TaskStatus.NEW, snapshot.getTaskById(task.getId()).getStatus(),
+                "Снимок не должен видеть изменение задачи на месте");
+        assertEquals("t", snapshot.getTaskById(task.getId()).getName());
+        assertEquals(TaskStatus.NEW, snapshot.getSubtaskById(subtask.getId()).getStatus());
+        assertEquals(TaskStatus.NEW, snapshot.getEpicById(epic.getId()).getStatus());
+        assertTrue(snapshot.search("renamed", 10).isEmpty());
+        assertEquals(List.of(task), manager.search("renamed", 10));
+        assertEquals(TaskStatus.DONE, manager.getTaskById(task.getId()).getStatus());
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpicById(epic.getId()).getStatus());
+    }
+
+    @Test
+    public void changesToReturnedObjectsDoNotReachManager() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        LocalDateTime day = LocalDateTime.of(2025, 6, 1, 0, 0);
+        Task task = manager.addTask(new Task("t", "t", Duration.ofHours(1), day.withHour(12)));
+        Epic epic = manager.addEpic(new Epic("e", "e"));
+        TaskManagerSnapshot snapshot = manager.snapshot();
+
+        manager.getTaskById(task.getId()).setStartTime(day.withHour(8));
+        manager.getPrioritizedTasks().getFirst().setName("changed");
+        manager.getAllTasks().getFirst().setStatus(TaskStatus.DONE);
+        snapshot.getTaskById(task.getId()).setDescription("changed");
+        manager.getEpicById(epic.getId()).setName("changed");
+        epic.setName("caller");
+
+        Task stored = manager.getTaskById(task.getId());
+        assertEquals(day.withHour(12), stored.getStartTime());
+        assertEquals("t", stored.getName());
+        assertEquals(TaskStatus.NEW, stored.getStatus());
+        assertEquals("t", snapshot.getTaskById(task.getId()).getDescription(), "Снимок должен отдавать копии");
+        assertTrue(manager.findOverlapping(day.withHour(8), day.withHour(9)).isEmpty(),
+                "Расписание не должно видеть изменение возвращённой задачи");
+        assertEquals("e", manager.getEpicById(epic.getId()).getName(), "Эпик хранится копией");
+        assertEquals("e", snapshot.getEpicById(epic.getId()).getName());
+    }
+
+    @Test
+    public void searchFindsTasksByAllWordsAndPrefixes() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task report = manager.addTask(new Task("Квартальный отчёт", "Собрать цифры продаж"));
+        Task draft = manager.addTask(new Task("Черновик отчётности", null));
+        Epic epic = manager.addEpic(new Epic("Продажи", "План продаж на год"));
+        Subtask call = manager.addSubtask(new Subtask("Позвонить клиенту", "Отчёт по звонкам", epic.getId()));
+
+        assertEquals(List.of(report, call), manager.search("отчёт", 10));
+        assertEquals(List.of(report, draft, call), manager.search("ОТЧЁТ*", 10), "Поиск по префиксу без учёта регистра");
+        assertEquals(List.of(report), manager.search("отчёт продаж", 10), "Все слова запроса должны быть в задаче");
+        assertEquals(List.of(report.getId(), epic.getId()), ids(manager.search("продаж", 10)));
+        assertEquals(List.of(report), manager.search("отч*", 1));
+        assertTrue(manager.search("отчёт отпуск", 10).isEmpty());
+        assertTrue(manager.search("  ", 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> manager.search("отчёт", 0));
+
+        Task renamed = manager.updateTask(new Task(report.getId(), "Годовой отчёт", "Собрать цифры",
+                TaskStatus.NEW));
+        assertEquals(List.of(renamed), manager.search("годовой", 10));
+        assertEquals(List.of(epic.getId()), ids(manager.search("продаж", 10)), "Старые слова задачи не должны находиться");
+        manager.deleteEpicById(epic.getId());
+        assertEquals(List.of(renamed), manager.search("отчёт", 10), "Подзадачи удалённого эпика не должны находиться");
+        assertTrue(manager.search("продаж", 10).isEmpty());
+        assertEquals(List.of(renamed), manager.snapshot().search("цифры", 10));
+    }
+
+    @Test
+    public void managersInOneProcessNumberTasksIndependently() {
+        TaskManager first = new InMemoryTaskManager();
+        TaskManager second = new ConcurrentTaskManager();
+
+        Task a = first.addTask(new Task(Task.NO_ID, "a", "a", TaskStatus.NEW));
+        Epic b = second.addEpic(new Epic(Task.NO_ID, "b", "b", TaskStatus.NEW));
+        Task c = first.addTask(new Task(Task.NO_ID, "c", "c", TaskStatus.NEW));
+        Subtask d = second.addSubtask(new Subtask(Task.NO_ID, "d", "d", TaskStatus.NEW, b.getId()));
+
+        assertEquals(List.of(1, 2), List.of(a.getId(), c.getId()), "Id первой доски зависят от второй");
+        assertEquals(List.of(1, 2), List.of(b.getId(), d.getId()), "Id второй доски зависят от первой");
+        assertEquals(List.of(a, c), first.getAllTasks());
+        assertEquals(List.of(d), second.getSubtasksOfEpic(b.getId()));
+    }
+
+    @Test
+    public void explicitIdsAreNotIssuedAgain() {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        Task first = manager.addTask(new Task(Task.NO_ID, "1", "1", TaskStatus.NEW));
+        Task explicit = manager.addTask(new Task(3, "3", "3", TaskStatus.NEW));
+        Task second = manager.addTask(new Task(Task.NO_ID, "2", "2", TaskStatus.NEW));
+        Task third = manager.addTask(new Task(Task.NO_ID, "4", "4", TaskStatus.NEW));
+        Task shared = manager.addTask(new Task("shared", "shared"));
+        Task fourth = manager.addTask(new Task(Task.NO_ID, "5", "5", TaskStatus.NEW));
+
+        assertEquals(List.of(1, 3, 2, 4), List.of(first.getId(), explicit.getId(), second.getId(), third.getId()),
+                "Id, занятый явно, не должен выдаваться из арендованного блока");
+        assertNotEquals(shared.getId(), fourth.getId(), "Id из общего генератора не должен выдаваться доской");
+        assertEquals(6, manager.getAllTasks().size(), "Ни одна задача не должна быть перезаписана");
+    }
+}
@@ -0,0 +1,45 @@
+package managers;
+
+import app.Managers;
+import model.Task;
+import org.junit.jupiter.api.Test;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InstrumentedTaskManagerTest {
+
+    @Test
+    public void callsAndSizesArePublishedToJmx() throws Exception {
+        InstrumentedTaskManager manager = Managers.getInstrumented("instrumented-test");
+        ManagerMetrics metrics = manager.getMetrics();
+        try {
+            Task task = manager.addTask(new Task("t", "отчёт"));
+            manager.getTaskById(task.getId());
+            manager.getTaskById(task.getId());
+
+            assertEquals(1, metrics.getOperations().get("addTask").getCount());
+            assertEquals(2, metrics.getOperations().get("getTaskById").getCount());
+            assertEquals(2, metrics.getOperations().get("history.add").getCount(),
+                    "Просмотры должны замеряться и в истории");
+            assertEquals(new StoreSizes(1, 0, 0, 0, 2, 1), manager.getStoreSizes());
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(1, server.getAttribute(metrics.managerName(), "TaskCount"));
+            assertEquals(2L, server.getAttribute(metrics.operationName("getTaskById"), "Count"));
+            assertThrows(IllegalArgumentException.class, () -> new ManagerMetrics("instrumented-test").register(),
+                    "Имя метрик должно быть уникальным");
+
+            server.setAttribute(metrics.managerName(), new Attribute("Enabled", false));
+            manager.getTaskById(task.getId());
+            assertEquals(2, metrics.getOperations().get("getTaskById").getCount(),
+                    "Выключенные метрики не должны ничего записывать");
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.managerName()));
+    }
+}
@@ -1,8 +1,14 @@
 package model;
 
+import model.enums.TaskStatus;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
 class EpicTest {
 
     @Test
@@ -20,4 +26,62 @@ class EpicTest {
 
         Assertions.assertNotEquals(epic1, epic2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void rollupsFollowSubtaskChanges() {
+        Epic epic = new Epic("epic", "epic");
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Subtask first = new Subtask("s1", "s1", Duration.ofMinutes(30), start, epic.getId());
+        Subtask second = new Subtask("s2", "s2", Duration.ofMinutes(60), start.plusHours(2), epic.getId());
+        epic.applySubtask(first);
+        epic.applySubtask(second);
+
+        Assertions.assertEquals(TaskStatus.NEW, epic.getStatus());
+        Assertions.assertEquals(start, epic.getStartTime());
+        Assertions.assertEquals(start.plusHours(3), epic.getEndTime());
+        Assertions.assertEquals(Duration.ofMinutes(90), epic.getDuration());
+
+        second.setStatus(TaskStatus.DONE);
+        epic.applySubtask(second);
+        Assertions.assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus(), "Статус эпика не пересчитан");
+
+        epic.removeSubtaskId(first.getId());
+        Assertions.assertEquals(TaskStatus.DONE, epic.getStatus());
+        Assertions.assertEquals(start.plusHours(2), epic.getStartTime(), "Начало эпика не сдвинулось");
+        Assertions.assertEquals(Duration.ofMinutes(60), epic.getDuration());
+        Assertions.assertEquals(List.of(second.getId()), epic.getSubtasksIds());
+
+        epic.removeSubtaskId(second.getId());
+        Assertions.assertEquals(TaskStatus.NEW, epic.getStatus());
+        Assertions.assertNull(epic.getStartTime());
+        Assertions.assertNull(epic.getEndTime());
+        Assertions.assertEquals(Duration.ZERO, epic.getDuration());
+    }
+
+    @Test
+    public void incrementalRollupsMatchRecalculation() {
+        Epic incremental = new Epic(1, "epic", "epic", TaskStatus.NEW);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Subtask> subtasks = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Subtask subtask = new Subtask(100 + i, "s" + i, "s" + i, TaskStatus.values()[i % 3],
+                    Duration.ofMinutes(10 + i), start.plusHours(i % 7), 1);
+            subtasks.add(subtask);
+            incremental.applySubtask(subtask);
+        }
+        for (int i = 0; i < 20; i += 3) {
+            incremental.removeSubtaskId(subtasks.get(i).getId());
+        }
+        List<Subtask> remaining = new ArrayList<>(subtasks);
+        remaining.removeIf(subtask -> (subtask.getId() - 100) % 3 == 0);
+
+        Epic recalculated = new Epic(1, "epic", "epic", TaskStatus.NEW);
+        recalculated.recalculate(remaining);
+
+        Assertions.assertEquals(recalculated.getStatus(), incremental.getStatus());
+        Assertions.assertEquals(recalculated.getStartTime(), incremental.getStartTime());
+        Assertions.assertEquals(recalculated.getEndTime(), incremental.getEndTime());
+        Assertions.assertEquals(recalculated.getDuration(), incremental.getDuration());
+        Assertions.assertEquals(recalculated.getSubtasksIds(), incremental.getSubtasksIds());
+    }
+}
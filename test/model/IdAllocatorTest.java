@@ -0,0 +1,91 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdAllocatorTest {
+
+    @Test
+    public void checkThatParallelThreadsGetUniqueIds() throws Exception {
+        IdAllocator allocator = new IdAllocator(1, 16);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                List<Integer> ids = new ArrayList<>();
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(allocator.nextId());
+                }
+                return ids;
+            }));
+        }
+        Set<Integer> unique = new HashSet<>();
+        for (Future<List<Integer>> future : futures) {
+            unique.addAll(future.get());
+        }
+        executor.shutdown();
+
+        assertEquals(40_000, unique.size(), "Потоки получили одинаковые id");
+        assertTrue(allocator.getHighWaterMark() > unique.stream().mapToInt(Integer::intValue).max().orElseThrow(),
+                "Все выданные id должны быть меньше high-water mark");
+    }
+
+    @Test
+    public void checkThatAdvanceSkipsIdsInLeasedBlock() {
+        IdAllocator allocator = new IdAllocator(1, 64);
+        assertEquals(1, allocator.nextId());
+
+        allocator.advanceTo(10);
+        assertEquals(10, allocator.nextId(), "Id из арендованного блока ниже границы выдаваться не должны");
+
+        allocator.advanceTo(5);
+        assertEquals(11, allocator.nextId(), "Счётчик не должен уходить назад");
+        assertEquals(65, allocator.getHighWaterMark());
+    }
+
+    @Test
+    public void checkThatAllocatorsAreIndependent() {
+        IdAllocator first = new IdAllocator(1, 1);
+        IdAllocator second = new IdAllocator(1, 1);
+        first.nextId();
+        first.nextId();
+
+        assertEquals(1, second.nextId());
+        assertEquals(3, first.nextId());
+    }
+
+    @Test
+    public void checkThatClaimedIdInLeasedBlockIsNotIssued() {
+        IdAllocator allocator = new IdAllocator(1, 64);
+        assertEquals(1, allocator.nextId());
+
+        allocator.claim(3);
+        assertEquals(2, allocator.nextId());
+        assertEquals(4, allocator.nextId(), "Занятый id не должен выдаваться повторно");
+
+        allocator.claim(100);
+        assertEquals(101, allocator.getHighWaterMark());
+    }
+
+    @Test
+    public void checkThatClaimedIdsAreSkippedByOtherThreads() throws Exception {
+        IdAllocator allocator = new IdAllocator(1, 64);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        assertEquals(1, executor.submit(allocator::nextId).get());
+
+        allocator.claim(2);
+        allocator.claim(3);
+        assertEquals(4, executor.submit(allocator::nextId).get(),
+                "Id, занятые в блоке другого потока, не должны выдаваться");
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,130 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntHashMapTest {
+
+    @Test
+    public void checkThatValuesKeepInsertionOrder() {
+        IntHashMap<String> map = new IntHashMap<>();
+        map.put(30, "a");
+        map.put(10, "b");
+        map.put(20, "c");
+        map.put(10, "b2");
+        map.remove(30);
+        map.put(30, "d");
+
+        assertEquals(List.of("b2", "c", "d"), new ArrayList<>(map.values()),
+                "Замена не меняет порядок, повторное добавление идёт в конец");
+        assertEquals(3, map.size());
+        assertNull(map.get(40));
+        assertTrue(map.containsKey(20));
+    }
+
+    @Test
+    public void checkThatMapMatchesLinkedHashMap() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+            if (i % 10_000 == 0) {
+                assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()),
+                        "Порядок обхода разошёлся с LinkedHashMap");
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertFalse(map.values().iterator().hasNext());
+    }
+
+    @Test
+    public void checkThatNullValueIsRejected() {
+        assertThrows(NullPointerException.class, () -> new IntHashMap<String>().put(1, null));
+    }
+
+    @Test
+    public void checkThatValuesAfterGoesByAscendingKey() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int key = 1; key <= 10; key++) {
+            map.put(key, "v" + key);
+        }
+        map.remove(5);
+        List<String> page = new ArrayList<>();
+        map.valuesAfter(3).forEachRemaining(page::add);
+        assertEquals(List.of("v4", "v6", "v7", "v8", "v9", "v10"), page);
+
+        map.put(0, "v0");
+        page.clear();
+        map.valuesAfter(Integer.MIN_VALUE).forEachRemaining(page::add);
+        assertEquals("v0", page.getFirst(), "После ключа не по порядку обход всё равно идёт по возрастанию");
+        assertEquals(10, page.size());
+    }
+
+    @Test
+    public void checkThatSnapshotIsNotAffectedByLaterChanges() {
+        IntHashMap<String> map = new IntHashMap<>();
+        for (int key = 1; key <= 5; key++) {
+            map.put(key, "v" + key);
+        }
+        IntHashMap<String> snapshot = map.snapshot();
+        map.put(2, "changed");
+        map.remove(3);
+        for (int key = 6; key <= 100; key++) {
+            map.put(key, "v" + key);
+        }
+        map.clear();
+
+        assertEquals(List.of("v1", "v2", "v3", "v4", "v5"), new ArrayList<>(snapshot.values()));
+        assertEquals("v2", snapshot.get(2));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    public void checkThatChunkedSnapshotsMatchLinkedHashMap() {
+        IntHashMap<Integer> map = new IntHashMap<>();
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        Random random = new Random(7);
+        List<IntHashMap<Integer>> snapshots = new ArrayList<>();
+        List<Map<Integer, Integer>> expectedSnapshots = new ArrayList<>();
+        for (int step = 0; step < 20_000; step++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, step), map.put(key, step));
+            }
+            if (step % 2_500 == 0) {
+                snapshots.add(map.snapshot());
+                expectedSnapshots.add(new LinkedHashMap<>(expected));
+            }
+        }
+
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertEquals(new ArrayList<>(expectedSnapshots.get(i).values()), new ArrayList<>(snapshots.get(i).values()),
+                    "Снимок изменился после записи в исходный словарь");
+            for (Map.Entry<Integer, Integer> entry : expectedSnapshots.get(i).entrySet()) {
+                assertEquals(entry.getValue(), snapshots.get(i).get(entry.getKey()));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLinkedHashSetTest {
+
+    @Test
+    public void checkThatSetKeepsInsertionOrder() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        assertTrue(set.add(5));
+        assertTrue(set.add(3));
+        assertFalse(set.add(5), "Повторное добавление не должно менять множество");
+        assertTrue(set.add(9));
+        assertTrue(set.remove(3));
+        assertFalse(set.remove(3));
+
+        assertArrayEquals(new int[]{5, 9}, set.toArray());
+        assertTrue(set.contains(9));
+        assertFalse(set.contains(3));
+        assertEquals("[5, 9]", set.toString());
+    }
+
+    @Test
+    public void checkThatReadOnlyViewFollowsSet() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        IntSet view = set.readOnly();
+        set.add(1);
+        set.add(2);
+
+        assertEquals(2, view.size(), "Представление должно видеть изменения без копирования");
+        assertFalse(view instanceof IntLinkedHashSet, "Представление нельзя привести к изменяемому множеству");
+        assertEquals(set, new IntLinkedHashSet(view));
+    }
+
+    @Test
+    public void checkThatSetMatchesLinkedHashSet() {
+        IntLinkedHashSet set = new IntLinkedHashSet();
+        Set<Integer> expected = new LinkedHashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 50_000; i++) {
+            int value = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+        }
+
+        assertArrayEquals(expected.stream().mapToInt(Integer::intValue).toArray(), set.toArray());
+    }
+}
@@ -0,0 +1,52 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    public void checkThatPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500, histogram.getMean(), 1);
+        double[] percentiles = {50, 99, 99.9};
+        long[] exact = {50_000_000, 99_000_000, 99_900_000};
+        for (int i = 0; i < percentiles.length; i++) {
+            long value = histogram.getValueAtPercentile(percentiles[i]);
+            assertTrue(value >= exact[i] && value <= exact[i] + exact[i] / 16,
+                    "Процентиль " + percentiles[i] + " вне погрешности корзины: " + value);
+        }
+        assertEquals(histogram.getMax(), histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void checkThatBucketsCoverAllValuesWithoutGaps() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 1L << 40, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(bucket), "Значение больше границы своей корзины");
+            if (bucket > 0) {
+                assertTrue(value > LatencyHistogram.upperBoundOf(bucket - 1),
+                        "Значение должно быть больше границы предыдущей корзины");
+            }
+        }
+    }
+
+    @Test
+    public void checkThatResetClearsHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+    }
+}